@@ -0,0 +1,77 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generated schemas and queries of a given size for the benchmarks.
+ */
+final class BenchmarkSchemas {
+
+    private BenchmarkSchemas() {
+    }
+
+    /**
+     * Schema with a {@code Query} type of {@code fields} fields, each of them returns an {@code Item}.
+     */
+    static String sdl(int fields) {
+        return "schema { query: Query }\n"
+                + "type Item { id: ID, name: String, amount: Int, tags: [String] }\n"
+                + IntStream.range(0, fields)
+                .mapToObj(i -> "  field" + i + "(id: ID): Item")
+                .collect(Collectors.joining("\n", "type Query {\n", "\n}\n"));
+    }
+
+    /**
+     * Query selecting all the {@code fields} fields of the {@link #sdl(int)} schema.
+     */
+    static String query(int fields) {
+        return IntStream.range(0, fields)
+                .mapToObj(i -> "field" + i + "(id: \"" + i + "\") { id name amount tags }")
+                .collect(Collectors.joining("\n  ", "query {\n  ", "\n}"));
+    }
+
+    /**
+     * Schema of {@code types} object types, each of them is paged by a {@code @connection} field of {@code Query},
+     * so {@link org.babich.graphql.schema.DirectiveExtensionSchemaParser} generates two more types for every type.
+     */
+    static String connectionSdl(int types) {
+        return "directive @connection(for: String!) on FIELD_DEFINITION\n"
+                + "schema { query: Query }\n"
+                + IntStream.range(0, types)
+                .mapToObj(i -> "type Item" + i + " { id: ID, name: String, amount: Int, tags: [String] }")
+                .collect(Collectors.joining("\n", "", "\n"))
+                + IntStream.range(0, types)
+                .mapToObj(i -> "  items" + i + "(first: Int, after: String, last: Int, before: String): Item" + i
+                        + "Connection @connection(for: \"Item" + i + "\")")
+                .collect(Collectors.joining("\n", "type Query {\n", "\n}\n"));
+    }
+
+    /**
+     * The schema of {@link #connectionSdl(int)} split into {@code sources} sources, the first one declares
+     * {@code Query} and the others declare the types and extend {@code Query} by their connection fields.
+     */
+    static Map<String, String> connectionSdlSources(int types, int sources) {
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("query.graphqls", "directive @connection(for: String!) on FIELD_DEFINITION\n"
+                + "schema { query: Query }\n"
+                + "type Query { version: String }\n");
+
+        for (int source = 0; source < sources; source++) {
+            int current = source;
+            result.put("module" + source + ".graphqls", IntStream.range(0, types)
+                    .filter(i -> current == i % sources)
+                    .mapToObj(i -> "type Item" + i + " { id: ID, name: String, amount: Int, tags: [String] }\n"
+                            + "extend type Query { items" + i + "(first: Int, after: String, last: Int, before: String)"
+                            + ": Item" + i + "Connection @connection(for: \"Item" + i + "\") }")
+                    .collect(Collectors.joining("\n", "", "\n")));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.relay.Connection;
+import graphql.relay.ConnectionCursor;
+import graphql.relay.SimpleListConnection;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import org.babich.graphql.connection.KeysetConnectionFetcher;
+import org.babich.graphql.connection.KeysetCursor;
+import org.babich.graphql.connection.PageRequest;
+import org.babich.graphql.connection.PageSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * A page of 20 nodes after a cursor at the given offset of 100,000 sorted nodes: {@link SimpleListConnection} of
+ * the list built for the request against {@link KeysetConnectionFetcher} over a range of a {@link NavigableMap}.
+ * <pre>
+ *     java -jar target/benchmarks.jar ConnectionFetcherBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionFetcherBenchmark {
+
+    private static final int size = 100_000;
+
+    private static final int pageSize = 20;
+
+    @Param({"0", "90000"})
+    public int offset;
+
+    private NavigableMap<Long, Long> nodes;
+
+    private KeysetConnectionFetcher<Long, Long> keysetFetcher;
+
+    private DataFetchingEnvironment simpleListEnvironment;
+
+    private DataFetchingEnvironment keysetEnvironment;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nodes = new TreeMap<>();
+        LongStream.range(0, size).forEach(number -> nodes.put(number, number));
+
+        keysetFetcher = new KeysetConnectionFetcher<>(KeysetCursor.ofLong("Number"), new RangeSource());
+
+        ConnectionCursor offsetCursor = new SimpleListConnection<>(new ArrayList<>(nodes.values()))
+                .cursorForObjectInConnection((long) offset);
+
+        simpleListEnvironment = environment(offsetCursor.getValue());
+        keysetEnvironment = environment(keysetFetcher.getCursor().encode((long) offset));
+    }
+
+    @Benchmark
+    public Connection<Long> simpleListConnection() {
+        // the list is fetched and filtered for every request
+        List<Long> list = nodes.values().stream().filter(node -> node >= 0).collect(Collectors.toList());
+        return new SimpleListConnection<>(list).get(simpleListEnvironment);
+    }
+
+    @Benchmark
+    public Connection<Long> keysetConnectionFetcher() {
+        return keysetFetcher.get(keysetEnvironment);
+    }
+
+
+    private static DataFetchingEnvironment environment(String after) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("first", pageSize);
+        arguments.put("after", after);
+
+        return DataFetchingEnvironmentImpl.newDataFetchingEnvironment().arguments(arguments).build();
+    }
+
+    private class RangeSource implements PageSource<Long, Long> {
+
+        @Override
+        public Long getKey(Long node) {
+            return node;
+        }
+
+        @Override
+        public List<Long> getPage(PageRequest<Long> request, DataFetchingEnvironment environment) {
+            List<Long> page = new ArrayList<>(request.getLimit());
+            Iterator<Long> iterator = PageSource.range(nodes, request).values().iterator();
+            while (iterator.hasNext() && page.size() < request.getLimit()) {
+                Long node = iterator.next();
+                if (node >= 0) {
+                    page.add(node);
+                }
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.language.Document;
+import graphql.parser.MultiSourceReader;
+import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DirectiveExtensionSchemaParser#buildRegistry(Document)} of a parsed SDL with a {@code @connection} field
+ * per type, so only the registration and the directive expansion are measured. The plain {@link SchemaParser}
+ * registering the same document without the generated types is the baseline.
+ * <pre>
+ *     java -jar target/benchmarks.jar DirectiveExpansionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectiveExpansionBenchmark {
+
+    @Param({"500", "5000"})
+    public int types;
+
+    private Document document;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = new Parser().parseDocument(MultiSourceReader.newMultiSourceReader()
+                .string(BenchmarkSchemas.connectionSdl(types), "schema.graphqls")
+                .build(), ParserOptions.getDefaultSdlParserOptions());
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry directiveExtensionParser() {
+        return new DirectiveExtensionSchemaParser().buildRegistry(document);
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry baselineParser() {
+        return new SchemaParser().buildRegistry(document);
+    }
+}
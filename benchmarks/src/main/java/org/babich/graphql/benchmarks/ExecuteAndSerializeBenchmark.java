@@ -0,0 +1,127 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.babich.graphql.GraphQLContextFactory;
+import org.babich.graphql.GraphQLHttpServletUtil;
+import org.babich.graphql.GraphQLQueryCache;
+import org.babich.graphql.GraphQLRootObjectBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link GraphQLHttpServletUtil#execute} of a query returning {@code items} objects,
+ * followed by serialization of the result to a json string or streaming it to the response.
+ * The query is preparsed, as it is by the application, so the benchmark measures execution and serialization.
+ * <pre>
+ *     java -jar target/benchmarks.jar ExecuteAndSerializeBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecuteAndSerializeBenchmark {
+
+    private static final String query = "query { items { id name amount tags } }";
+
+    @Param({"1", "1000"})
+    public int items;
+
+    private GraphQL graphQL;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final GraphQLContextFactory contextFactory = new GraphQLContextFactory.ServletGraphQLContextFactory();
+
+    private final GraphQLRootObjectBuilder rootObjectBuilder = () -> null;
+
+    private final OutputStream response = new DiscardingOutputStream();
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Map<String, Object>> result = IntStream.range(0, items)
+                .mapToObj(ExecuteAndSerializeBenchmark::item)
+                .collect(Collectors.toList());
+
+        DataFetcher<List<Map<String, Object>>> itemsFetcher = environment -> result;
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(
+                "type Query { items: [Item] } type Item { id: ID, name: String, amount: Int, tags: [String] }")
+                , RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder.dataFetcher("items", itemsFetcher))
+                        .build());
+
+        graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new GraphQLQueryCache())
+                .build();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> executeToString() {
+        return GraphQLHttpServletUtil.getResultAsResponseEntity(execute(), objectMapper);
+    }
+
+    @Benchmark
+    public OutputStream executeToStream() throws IOException {
+        GraphQLHttpServletUtil.writeResult(execute(), objectMapper, response);
+        return response;
+    }
+
+    private ExecutionResult execute() {
+        return GraphQLHttpServletUtil.execute(graphQL
+                , query
+                , null
+                , Collections.emptyMap()
+                , contextFactory.openQuery(null)
+                , rootObjectBuilder);
+    }
+
+    private static Map<String, Object> item(int id) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", String.valueOf(id));
+        item.put("name", "item \"" + id + "\"");
+        item.put("amount", id);
+        item.put("tags", Arrays.asList("tag" + id % 10, "tag" + id % 7));
+        return item;
+    }
+
+
+    /**
+     * Response body that discards the written bytes, so the benchmark measures serialization only.
+     */
+    static class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeRuntimeWiring;
+import org.babich.graphql.execution.DataFetcherExecutors;
+import org.babich.graphql.execution.ExecutorDataFetcherExecutionStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Query of {@code fields} sibling fields, each of them is resolved by a blocking fetcher
+ * that simulates a JDBC call of {@code latencyMicros}.
+ * Compares the default {@link AsyncExecutionStrategy} with {@link ExecutorDataFetcherExecutionStrategy}
+ * on a bounded pool and on virtual threads (the bounded pool is used on JDKs without virtual threads).
+ * <pre>
+ *     java -jar target/benchmarks.jar ExecutionStrategyBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ExecutionStrategyBenchmark {
+
+    @Param({"async", DataFetcherExecutors.bounded, DataFetcherExecutors.virtual})
+    public String strategy;
+
+    @Param({"8"})
+    public int fields;
+
+    @Param({"500"})
+    public long latencyMicros;
+
+    private ExecutorService executor;
+
+    private GraphQL graphQL;
+
+    private String query;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataFetcher<String> blockingFetcher = environment -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+            return environment.getField().getName();
+        };
+
+        TypeRuntimeWiring.Builder queryWiring = TypeRuntimeWiring.newTypeWiring("Query");
+        for (int i = 0; i < fields; i++) {
+            queryWiring.dataFetcher("field" + i, blockingFetcher);
+        }
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse(BenchmarkSchemas.sdl(fields).replace(": Item", ": String"))
+                , RuntimeWiring.newRuntimeWiring().type(queryWiring).build());
+
+        GraphQL.Builder builder = GraphQL.newGraphQL(schema);
+
+        if ("async".equals(strategy)) {
+            builder.queryExecutionStrategy(new AsyncExecutionStrategy());
+        } else {
+            executor = DataFetcherExecutors.create(strategy, 64, 1000);
+            builder.queryExecutionStrategy(new ExecutorDataFetcherExecutionStrategy(executor));
+        }
+
+        graphQL = builder.build();
+        query = BenchmarkSchemas.query(fields).replace(" { id name amount tags }", "");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public ExecutionResult execute() {
+        return graphQL.execute(query);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import org.babich.graphql.GraphQLHttpServletUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GraphQLHttpServletUtil#getVariables(MultiValueMap)} of projection request parameters,
+ * every third parameter has several values.
+ * <pre>
+ *     java -jar target/benchmarks.jar GetVariablesBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetVariablesBenchmark {
+
+    @Param({"2", "20"})
+    public int parameters;
+
+    private MultiValueMap<String, String> queryParameters;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queryParameters = new LinkedMultiValueMap<>();
+        for (int i = 0; i < parameters; i++) {
+            queryParameters.add("param" + i, "value" + i);
+            if (0 == i % 3) {
+                queryParameters.add("param" + i, "other" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> getVariables() {
+        return GraphQLHttpServletUtil.getVariables(queryParameters);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.GraphQLContext;
+import org.babich.graphql.GraphQLContextBuilder;
+import org.babich.graphql.GraphQLContextFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context of a projection request created by a prototype {@link GraphQLContextBuilder} looked up
+ * in the application context on every request and by the shared {@link GraphQLContextFactory}.
+ * <pre>
+ *     java -jar target/benchmarks.jar GraphQLContextCreationBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class GraphQLContextCreationBenchmark {
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private GraphQLContextFactory contextFactory;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = new AnnotationConfigApplicationContext(Config.class);
+        contextFactory = applicationContext.getBean(GraphQLContextFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public GraphQLContext prototypeBuilder() {
+        return applicationContext.getBean(GraphQLContextBuilder.class).projection(true).build();
+    }
+
+    @Benchmark
+    public GraphQLContext sharedFactory() {
+        return contextFactory.projection(null);
+    }
+
+
+    @Configuration
+    public static class Config {
+
+        @Bean
+        @org.springframework.context.annotation.Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
+        public GraphQLContextBuilder graphQLContextBuilder() {
+            return new GraphQLContextBuilder.ServletGraphQLContextBuilder();
+        }
+
+        @Bean
+        public GraphQLContextFactory graphQLContextFactory() {
+            return new GraphQLContextFactory.ServletGraphQLContextFactory();
+        }
+    }
+}
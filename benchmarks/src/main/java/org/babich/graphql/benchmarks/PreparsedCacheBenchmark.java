@@ -0,0 +1,89 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.ParseAndValidate;
+import graphql.ParseAndValidateResult;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.babich.graphql.GraphQLQueryCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@link GraphQLQueryCache#getDocument} of a cached query and of a query that is not in the cache yet,
+ * a miss includes parsing and validation of the query.
+ * <pre>
+ *     java -jar target/benchmarks.jar PreparsedCacheBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreparsedCacheBenchmark {
+
+    @Param({"10", "200"})
+    public int fields;
+
+    private GraphQLQueryCache queryCache;
+
+    private String query;
+
+    private ExecutionInput cachedInput;
+
+    private Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate;
+
+    private final AtomicLong operations = new AtomicLong();
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse(BenchmarkSchemas.sdl(fields))
+                , RuntimeWiring.newRuntimeWiring().build());
+
+        parseAndValidate = executionInput -> {
+            ParseAndValidateResult result = ParseAndValidate.parseAndValidate(schema, executionInput);
+            return result.isFailure() ? new PreparsedDocumentEntry(result.getErrors())
+                    : new PreparsedDocumentEntry(result.getDocument());
+        };
+
+        queryCache = new GraphQLQueryCache(
+                new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder().maximumSize(1000).build(), false)
+                , Function.identity());
+
+        query = BenchmarkSchemas.query(fields);
+        cachedInput = ExecutionInput.newExecutionInput().query(query).build();
+        queryCache.getDocument(cachedInput, parseAndValidate);
+    }
+
+    @Benchmark
+    public PreparsedDocumentEntry hit() {
+        return queryCache.getDocument(cachedInput, parseAndValidate);
+    }
+
+    /**
+     * Every invocation executes a query of a new operation name, so its cache key has not been seen before.
+     */
+    @Benchmark
+    public PreparsedDocumentEntry miss() {
+        ExecutionInput input = ExecutionInput.newExecutionInput()
+                .query("query Q" + operations.incrementAndGet() + query.substring("query".length()))
+                .build();
+        return queryCache.getDocument(input, parseAndValidate);
+    }
+}
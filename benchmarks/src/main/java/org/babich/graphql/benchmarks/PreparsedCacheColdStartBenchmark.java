@@ -0,0 +1,143 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.ParseAndValidate;
+import graphql.ParseAndValidateResult;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.babich.graphql.GraphQLQueryCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cold start of the preparsed document cache: {@code threads} requests for the same query arrive
+ * at the same time on an empty cache.
+ * <p>
+ * Besides the wall time of a cold hit the benchmark reports how many times the document was parsed
+ * and validated ({@code computations}) and the CPU time all the threads spent ({@code cpuMicros}),
+ * so the single-flight mode can be compared against the get-then-put mode.
+ * <pre>
+ *     java -jar target/benchmarks.jar PreparsedCacheColdStartBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreparsedCacheColdStartBenchmark {
+
+    @Param({"true", "false"})
+    public boolean singleFlight;
+
+    @Param({"8", "64"})
+    public int threads;
+
+    private GraphQLSchema schema;
+
+    private String query;
+
+    private ExecutorService executor;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(BenchmarkSchemas.sdl(200))
+                , RuntimeWiring.newRuntimeWiring().build());
+        query = BenchmarkSchemas.query(200);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<PreparsedDocumentEntry> coldHit(Counters counters) throws Exception {
+
+        GraphQLQueryCache queryCache = new GraphQLQueryCache(
+                new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder().build(), false)
+                , Function.identity()
+                , singleFlight);
+
+        ExecutionInput input = ExecutionInput.newExecutionInput().query(query).build();
+
+        Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate = executionInput -> {
+            counters.computations.incrementAndGet();
+            ParseAndValidateResult result = ParseAndValidate.parseAndValidate(schema, executionInput);
+            return result.isFailure() ? new PreparsedDocumentEntry(result.getErrors())
+                    : new PreparsedDocumentEntry(result.getDocument());
+        };
+
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<PreparsedDocumentEntry>> futures = IntStream.range(0, threads)
+                .mapToObj(i -> executor.submit(() -> {
+                    start.await();
+                    long cpu = threadMXBean.getCurrentThreadCpuTime();
+                    try {
+                        return queryCache.getDocument(input, parseAndValidate);
+                    } finally {
+                        counters.cpuNanos.addAndGet(threadMXBean.getCurrentThreadCpuTime() - cpu);
+                    }
+                }))
+                .collect(Collectors.toList());
+
+        start.countDown();
+
+        List<PreparsedDocumentEntry> entries = new ArrayList<>(threads);
+        for (Future<PreparsedDocumentEntry> future : futures) {
+            entries.add(future.get());
+        }
+        return entries;
+    }
+
+
+    /**
+     * Cold hit counters, an iteration is exactly one cold hit so JMH reports the totals over the measured iterations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        final AtomicLong computations = new AtomicLong();
+
+        final AtomicLong cpuNanos = new AtomicLong();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            computations.set(0);
+            cpuNanos.set(0);
+        }
+
+        public long computations() {
+            return computations.get();
+        }
+
+        public long cpuMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(cpuNanos.get());
+        }
+    }
+}
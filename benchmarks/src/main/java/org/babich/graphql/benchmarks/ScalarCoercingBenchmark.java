@@ -0,0 +1,89 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import org.babich.graphql.scalars.DateCoercing;
+import org.babich.graphql.scalars.LocalDateCoercing;
+import org.babich.graphql.scalars.OffsetDateTimeCoercing;
+import org.babich.graphql.scalars.OffsetTimeCoercing;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing and parsing of every {@link Coercing} of {@code org.babich.graphql.scalars}
+ * with the default patterns of {@link org.babich.graphql.configuration.ScalarConfiguration}.
+ * <pre>
+ *     java -jar target/benchmarks.jar ScalarCoercingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalarCoercingBenchmark {
+
+    private static final String dateTimePattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static final String datePattern = "yyyy-MM-dd";
+    private static final String timePattern = "HH:mm:ss.SSSZ";
+
+    @Param({"Date", "LocalDate", "OffsetDateTime", "OffsetTime"})
+    public String scalar;
+
+    private Coercing<?, ?> coercing;
+
+    private Object value;
+
+    private String input;
+
+    private StringValue literal;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (scalar) {
+            case "Date":
+                coercing = new DateCoercing(dateTimePattern);
+                input = "2020-06-27T10:15:30.123+0000";
+                break;
+            case "LocalDate":
+                coercing = new LocalDateCoercing(datePattern);
+                input = "2020-06-27";
+                break;
+            case "OffsetDateTime":
+                coercing = new OffsetDateTimeCoercing(dateTimePattern);
+                input = "2020-06-27T10:15:30.123+0000";
+                break;
+            case "OffsetTime":
+                coercing = new OffsetTimeCoercing(timePattern);
+                input = "10:15:30.123+0000";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scalar " + scalar);
+        }
+
+        literal = new StringValue(input);
+        value = coercing.parseValue(input);
+    }
+
+    @Benchmark
+    public Object serialize() {
+        return coercing.serialize(value);
+    }
+
+    @Benchmark
+    public Object parseValue() {
+        return coercing.parseValue(input);
+    }
+
+    @Benchmark
+    public Object parseLiteral() {
+        return coercing.parseLiteral(literal);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.benchmarks;
+
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.babich.graphql.schema.SchemaSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DirectiveExtensionSchemaParser#parse(String)} of a large SDL with a {@code @connection} field per type,
+ * the plain {@link SchemaParser} is the baseline of parsing the same SDL without generating the connection types.
+ * {@link DirectiveExtensionSchemaParser#parse(Map)} parses the same schema split into 80 sources in parallel,
+ * {@link SchemaSnapshot#load(Map, java.util.function.Function)} reads the registry of those sources from the snapshot.
+ * <pre>
+ *     java -jar target/benchmarks.jar SchemaParserBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaParserBenchmark {
+
+    @Param({"50", "500"})
+    public int types;
+
+    private String sdl;
+
+    private Map<String, String> sources;
+
+    private Path snapshotDirectory;
+
+    private SchemaSnapshot snapshot;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sdl = BenchmarkSchemas.connectionSdl(types);
+        sources = BenchmarkSchemas.connectionSdlSources(types, 80);
+
+        snapshotDirectory = Files.createTempDirectory("schema-snapshot");
+        snapshot = new SchemaSnapshot(snapshotDirectory);
+        snapshot.load(sources, new DirectiveExtensionSchemaParser()::parse);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot.snapshotFile(sources));
+        Files.deleteIfExists(snapshotDirectory);
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry directiveExtensionParser() {
+        return new DirectiveExtensionSchemaParser().parse(sdl);
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry directiveExtensionParserSources() {
+        return new DirectiveExtensionSchemaParser().parse(sources);
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry schemaSnapshot() {
+        return snapshot.load(sources, new DirectiveExtensionSchemaParser()::parse);
+    }
+
+    @Benchmark
+    public TypeDefinitionRegistry baselineParser() {
+        return new SchemaParser().parse(sdl);
+    }
+}
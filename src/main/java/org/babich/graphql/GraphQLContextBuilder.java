@@ -12,6 +12,8 @@ import java.util.StringJoiner;
 
 /**
  *  Builder of {@link GraphQLContext}.
+ *  The builder is mutable and is declared as a prototype bean, so it must not be shared between request threads,
+ *  use the stateless {@link GraphQLContextFactory} instead.
  *  httpServletRequest - might be used in fetchers to obtain authentication information.
  *  isProjection - is a flag for using projection instead of a real qraphQL query.
  */
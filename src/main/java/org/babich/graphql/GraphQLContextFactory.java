@@ -0,0 +1,58 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+
+import graphql.GraphQLContext;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ *  Stateless factory of {@link GraphQLContext}, a single instance is shared by all request threads
+ *  and creates a new context per request. The context itself is mutable, e.g. the analysis of the document is
+ *  put to it while the request is executed, so it must not be shared between requests.
+ *  Unlike the prototype {@link GraphQLContextBuilder} it holds no per-request state,
+ *  so it is injected once and is not looked up in the application context on every request.
+ *  The context keys are the same as the ones of {@link GraphQLContextBuilder}.
+ */
+public interface GraphQLContextFactory {
+
+    /**
+     * @param projection true if the query is a name of projection instead of a real qraphQL query
+     * @param request current request, might be null
+     * @return new context of the request
+     */
+    GraphQLContext create(boolean projection, HttpServletRequest request);
+
+    default GraphQLContext projection(HttpServletRequest request) {
+        return create(true, request);
+    }
+
+    default GraphQLContext openQuery(HttpServletRequest request) {
+        return create(false, request);
+    }
+
+
+    /**
+     * Default implementation of {@link GraphQLContextFactory}.
+     */
+    class ServletGraphQLContextFactory implements GraphQLContextFactory {
+
+        @Override
+        public GraphQLContext create(boolean projection, HttpServletRequest request) {
+            GraphQLContext.Builder context = GraphQLContext.newContext();
+
+            return null == request ? context.of(GraphQLContextBuilder.isProjection, projection).build()
+                    : context.of(GraphQLContextBuilder.isProjection, projection
+                    , GraphQLContextBuilder.httpServletRequest, request).build();
+        }
+
+        @Override
+        public String toString() {
+            return ServletGraphQLContextFactory.class.getSimpleName() + "[]";
+        }
+    }
+
+}
@@ -5,24 +5,43 @@
 package org.babich.graphql;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
 import graphql.GraphQL;
+import graphql.GraphQLContext;
+import graphql.GraphQLError;
+import org.babich.graphql.instrumentation.CachePolicy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.OK;
 
 public class GraphQLHttpServletUtil {
 
@@ -36,6 +55,12 @@ public class GraphQLHttpServletUtil {
     public static final String query = "query";
     public static final String variables = "variables";
     public static final String operation = "operation";
+    public static final String persistedQuery = "persistedQuery";
+    public static final String sha256Hash = "sha256Hash";
+    public static final String version = "version";
+
+    //output content type
+    public static final String applicationJsonUtf8 = "application/json;charset=UTF-8";
 
     //input document constants
     public static final String archived = "archived";
@@ -53,7 +78,9 @@ public class GraphQLHttpServletUtil {
                     .build();
         }
 
-        return Response.ok(serializeResultAsJson(executionResult, objectMapper)).build();
+        return Response.ok(serializeResultAsJson(executionResult, objectMapper))
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl(executionResult))
+                .build();
     }
 
     /**
@@ -68,7 +95,153 @@ public class GraphQLHttpServletUtil {
                     .body(serializeResultAsJson(executionResult, objectMapper));
         }
 
-        return ResponseEntity.ok(serializeResultAsJson(executionResult, objectMapper));
+        return ResponseEntity.ok()
+                .headers(headers -> setCacheControl(headers, executionResult))
+                .body(serializeResultAsJson(executionResult, objectMapper));
+    }
+
+    /**
+     * Streaming of the result of graphql-query in json format, the result is written to the response
+     * output stream as UTF-8 bytes without building an intermediate string.
+     * @param executionResult result
+     * @param objectMapper json mapper
+     * @return response with {@link StreamingOutput} entity
+     */
+    public static Response getStreamingResult(ExecutionResult executionResult, ObjectMapper objectMapper) {
+        StreamingOutput output = outputStream -> writeResult(executionResult, objectMapper, outputStream);
+
+        if (areErrorsPresent(executionResult)) {
+            return Response.status(INTERNAL_SERVER_ERROR)
+                    .type(applicationJsonUtf8)
+                    .entity(output)
+                    .build();
+        }
+
+        return Response.ok(output, applicationJsonUtf8)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl(executionResult))
+                .build();
+    }
+
+    /**
+     * Streaming of the result of graphql-query in json format, the result is written to the response
+     * output stream as UTF-8 bytes without building an intermediate string.
+     * @param executionResult result
+     * @param objectMapper json mapper
+     * @return ResponseEntity<StreamingResponseBody> body writes json
+     */
+    public static ResponseEntity<StreamingResponseBody> getStreamingResultAsResponseEntity(
+            ExecutionResult executionResult, ObjectMapper objectMapper) {
+
+        StreamingResponseBody body = outputStream -> writeResult(executionResult, objectMapper, outputStream);
+
+        int status = areErrorsPresent(executionResult) ? INTERNAL_SERVER_ERROR.getStatusCode() : OK.getStatusCode();
+
+        return ResponseEntity.status(status)
+                .contentType(MediaType.valueOf(applicationJsonUtf8))
+                .headers(headers -> setCacheControl(headers, executionResult))
+                .body(body);
+    }
+
+    /**
+     * Wrapping of a cached projection response, see {@link ProjectionResponseCache}
+     * @param response cached response
+     * @param ifNoneMatch value of the {@code If-None-Match} header, might be null
+     * @return response with the ETag header, {@code 304 Not Modified} without body if the client has the same response
+     */
+    public static Response getCachedResult(ProjectionResponseCache.CachedResponse response, String ifNoneMatch) {
+        if (response.isNotModified(ifNoneMatch)) {
+            return Response.notModified(response.getEtag().substring(1, response.getEtag().length() - 1)).build();
+        }
+
+        return Response.status(response.isError() ? INTERNAL_SERVER_ERROR : OK)
+                .type(applicationJsonUtf8)
+                .header(HttpHeaders.ETAG, response.getEtag())
+                .header(HttpHeaders.CACHE_CONTROL, response.getCacheControl())
+                .entity(response.getBody())
+                .build();
+    }
+
+    /**
+     * Wrapping of a cached projection response, see {@link ProjectionResponseCache}
+     * @param response cached response
+     * @param ifNoneMatch value of the {@code If-None-Match} header, might be null
+     * @return ResponseEntity<byte[]> with the ETag header, {@code 304 Not Modified} without body
+     * if the client has the same response
+     */
+    public static ResponseEntity<byte[]> getCachedResultAsResponseEntity(ProjectionResponseCache.CachedResponse response
+            , String ifNoneMatch) {
+
+        if (response.isNotModified(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.getEtag()).build();
+        }
+
+        return ResponseEntity.status(response.isError() ? INTERNAL_SERVER_ERROR.getStatusCode() : OK.getStatusCode())
+                .contentType(MediaType.valueOf(applicationJsonUtf8))
+                .eTag(response.getEtag())
+                .headers(headers -> {
+                    if (null != response.getCacheControl()) {
+                        headers.setCacheControl(response.getCacheControl());
+                    }
+                })
+                .body(response.getBody());
+    }
+
+    /**
+     * Streaming of the result of graphql-query in json format straight to the servlet response
+     * in the request thread, so the controller method returns nothing.
+     * @param executionResult result
+     * @param objectMapper json mapper
+     * @param response servlet response, the status and content type are set
+     */
+    public static void writeResult(ExecutionResult executionResult
+            , ObjectMapper objectMapper
+            , HttpServletResponse response) throws IOException {
+
+        response.setStatus(areErrorsPresent(executionResult) ? INTERNAL_SERVER_ERROR.getStatusCode()
+                : OK.getStatusCode());
+        response.setContentType(applicationJsonUtf8);
+
+        String cacheControl = cacheControl(executionResult);
+        if (null != cacheControl) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+
+        writeResult(executionResult, objectMapper, response.getOutputStream());
+    }
+
+    /**
+     * Writing of the result of graphql-query in json format as UTF-8 bytes through a {@link JsonGenerator},
+     * the output stream is flushed but not closed.
+     * @param executionResult result
+     * @param objectMapper json mapper
+     * @param outputStream target stream
+     */
+    public static void writeResult(ExecutionResult executionResult
+            , ObjectMapper objectMapper
+            , OutputStream outputStream) throws IOException {
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+
+            generator.writeFieldName(data);
+            objectMapper.writeValue(generator, executionResult.getData());
+
+            if (areErrorsPresent(executionResult)) {
+                generator.writeFieldName(errors);
+                objectMapper.writeValue(generator, executionResult.getErrors());
+            }
+
+            Map<Object, Object> resultExtensions = extensionsOf(executionResult);
+            if (null != resultExtensions) {
+                generator.writeFieldName(extensions);
+                objectMapper.writeValue(generator, resultExtensions);
+            }
+
+            generator.writeEndObject();
+        }
     }
 
     /**
@@ -124,18 +297,277 @@ public class GraphQLHttpServletUtil {
             , GraphQLContextBuilder contextBuilder
             , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
 
+        return execute(graphQL
+                , query
+                , operationName
+                , variables
+                , contextBuilder.build()
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Executing of graphql-query with the context created by {@link GraphQLContextFactory}.
+     *
+     * @param context context of the request
+     * @return execution result
+     */
+    public static ExecutionResult execute(GraphQL graphQL
+            , String query
+            , String operationName
+            , Map<String, Object> variables
+            , GraphQLContext context
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        return graphQL.execute(buildExecutionInput(query
+                , operationName
+                , variables
+                , context
+                , graphQLRootObjectBuilder));
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #execute(GraphQL, String, String, Map, GraphQLContextBuilder, GraphQLRootObjectBuilder)}.
+     * The query is parsed and validated in the calling thread, data fetchers that return
+     * a {@link CompletableFuture} complete the result in their own threads.
+     *
+     * @return future of execution result
+     */
+    public static CompletableFuture<ExecutionResult> executeAsync(GraphQL graphQL
+            , String query
+            , String operationName
+            , Map<String, Object> variables
+            , GraphQLContextBuilder contextBuilder
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        return executeAsync(graphQL
+                , query
+                , operationName
+                , variables
+                , contextBuilder.build()
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #execute(GraphQL, String, String, Map, GraphQLContext, GraphQLRootObjectBuilder)}.
+     *
+     * @return future of execution result
+     */
+    public static CompletableFuture<ExecutionResult> executeAsync(GraphQL graphQL
+            , String query
+            , String operationName
+            , Map<String, Object> variables
+            , GraphQLContext context
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        return graphQL.executeAsync(buildExecutionInput(query
+                , operationName
+                , variables
+                , context
+                , graphQLRootObjectBuilder));
+    }
+
+    /**
+     * Executing of open query payload that might be an automatic persisted query.
+     * A payload with a persisted query hash only is resolved against the store,
+     * a payload with both a hash and a query registers the query in the store.
+     *
+     * @param payload open query payload
+     * @param persistedQueryStore store of persisted queries, null if persisted queries are not supported
+     * @return execution result or the result with {@link PersistedQueryError}
+     */
+    public static ExecutionResult execute(GraphQL graphQL
+            , Payload payload
+            , PersistedQueryStore persistedQueryStore
+            , GraphQLContextBuilder contextBuilder
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        return execute(graphQL
+                , payload
+                , persistedQueryStore
+                , contextBuilder.build()
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Executing of open query payload with the context created by {@link GraphQLContextFactory}.
+     *
+     * @param context context of the request
+     * @return execution result or the result with {@link PersistedQueryError}
+     */
+    public static ExecutionResult execute(GraphQL graphQL
+            , Payload payload
+            , PersistedQueryStore persistedQueryStore
+            , GraphQLContext context
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        List<GraphQLError> persistedQueryErrors = new ArrayList<>(1);
+        String query = resolveQuery(payload, persistedQueryStore, persistedQueryErrors);
+
+        if (!persistedQueryErrors.isEmpty()) {
+            return errorResult(persistedQueryErrors);
+        }
+
+        return execute(graphQL
+                , query
+                , payload.getOperation()
+                , payload.getVariables()
+                , context
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #execute(GraphQL, Payload, PersistedQueryStore, GraphQLContextBuilder, GraphQLRootObjectBuilder)}.
+     *
+     * @return future of execution result or of the result with {@link PersistedQueryError}
+     */
+    public static CompletableFuture<ExecutionResult> executeAsync(GraphQL graphQL
+            , Payload payload
+            , PersistedQueryStore persistedQueryStore
+            , GraphQLContextBuilder contextBuilder
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        return executeAsync(graphQL
+                , payload
+                , persistedQueryStore
+                , contextBuilder.build()
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #execute(GraphQL, Payload, PersistedQueryStore, GraphQLContext, GraphQLRootObjectBuilder)}.
+     *
+     * @return future of execution result or of the result with {@link PersistedQueryError}
+     */
+    public static CompletableFuture<ExecutionResult> executeAsync(GraphQL graphQL
+            , Payload payload
+            , PersistedQueryStore persistedQueryStore
+            , GraphQLContext context
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
+        List<GraphQLError> persistedQueryErrors = new ArrayList<>(1);
+        String query = resolveQuery(payload, persistedQueryStore, persistedQueryErrors);
+
+        if (!persistedQueryErrors.isEmpty()) {
+            return CompletableFuture.completedFuture(errorResult(persistedQueryErrors));
+        }
+
+        return executeAsync(graphQL
+                , query
+                , payload.getOperation()
+                , payload.getVariables()
+                , context
+                , graphQLRootObjectBuilder);
+    }
+
+    /**
+     * Completing of Spring MVC {@link DeferredResult} by the result of graphql-query in json format,
+     * the servlet container thread is released while the query is executed.
+     * A result that fails to be serialized completes the deferred result with the error.
+     * @param executionResult future of result
+     * @param objectMapper json mapper
+     * @return DeferredResult<ResponseEntity<String>> body is json string
+     */
+    public static DeferredResult<ResponseEntity<String>> getResultAsDeferredResult(
+            CompletableFuture<ExecutionResult> executionResult, ObjectMapper objectMapper) {
+
+        DeferredResult<ResponseEntity<String>> deferredResult = new DeferredResult<>();
+
+        executionResult.whenComplete((result, throwable) -> {
+            if (null != throwable) {
+                deferredResult.setErrorResult(throwable);
+                return;
+            }
+            try {
+                deferredResult.setResult(getResultAsResponseEntity(result, objectMapper));
+            } catch (RuntimeException e) {
+                deferredResult.setErrorResult(e);
+            }
+        });
+
+        return deferredResult;
+    }
+
+    /**
+     * Resuming of JAX-RS {@link AsyncResponse} by the result of graphql-query in json format,
+     * a result that fails to be serialized resumes the response with the error.
+     * @param executionResult future of result
+     * @param objectMapper json mapper
+     * @param asyncResponse suspended response
+     */
+    public static void resumeWithResult(CompletableFuture<ExecutionResult> executionResult
+            , ObjectMapper objectMapper
+            , AsyncResponse asyncResponse) {
+
+        executionResult.whenComplete((result, throwable) -> {
+            if (null != throwable) {
+                asyncResponse.resume(throwable);
+                return;
+            }
+            Response response;
+            try {
+                response = getResult(result, objectMapper);
+            } catch (RuntimeException e) {
+                asyncResponse.resume(e);
+                return;
+            }
+            asyncResponse.resume(response);
+        });
+    }
+
+    private static ExecutionInput buildExecutionInput(String query
+            , String operationName
+            , Map<String, Object> variables
+            , GraphQLContext context
+            , GraphQLRootObjectBuilder graphQLRootObjectBuilder) {
+
         Map<String, Object> vars = null == variables ? Collections.emptyMap()
                 : new HashMap<>(variables);
 
-        ExecutionInput input = ExecutionInput.newExecutionInput()
+        return ExecutionInput.newExecutionInput()
                 .query(query)
                 .operationName(operationName)
                 .variables(vars)
                 .root(graphQLRootObjectBuilder.build())
-                .context(contextBuilder.build())
+                .context(context)
                 .build();
+    }
+
+    private static String resolveQuery(Payload payload
+            , PersistedQueryStore persistedQueryStore
+            , List<GraphQLError> errors) {
+
+        String hash = payload.getPersistedQueryHash();
+        String query = payload.getQuery();
+
+        if (null == hash) {
+            return query;
+        }
+
+        if (null == persistedQueryStore || !payload.isPersistedQueryVersionSupported()) {
+            errors.add(PersistedQueryError.notSupported());
+            return null;
+        }
+
+        hash = hash.toLowerCase(Locale.ROOT);
+
+        if (null == query) {
+            if (null == (query = persistedQueryStore.getQuery(hash))) {
+                errors.add(PersistedQueryError.notFound());
+            }
+            return query;
+        }
+
+        if (!hash.equalsIgnoreCase(PersistedQueryStore.sha256Hex(query))) {
+            errors.add(PersistedQueryError.hashMismatch());
+            return null;
+        }
 
-        return graphQL.execute(input);
+        persistedQueryStore.putQuery(hash, query);
+        return query;
+    }
+
+    private static ExecutionResult errorResult(List<GraphQLError> errors) {
+        return ExecutionResultImpl.newExecutionResult().addErrors(errors).build();
     }
 
     private static String serializeResultAsJson(ExecutionResult executionResult, ObjectMapper objectMapper) {
@@ -160,13 +592,43 @@ public class GraphQLHttpServletUtil {
             result.put(errors, executionResult.getErrors());
         }
 
-        if (null != executionResult.getExtensions()) {
-            result.put(extensions, executionResult.getExtensions());
+        Map<Object, Object> resultExtensions = extensionsOf(executionResult);
+        if (null != resultExtensions) {
+            result.put(extensions, resultExtensions);
         }
 
         return result;
     }
 
+    /**
+     * @return value of the {@code Cache-Control} header of the result, null if the result has no {@link CachePolicy}
+     */
+    public static String cacheControl(ExecutionResult executionResult) {
+        CachePolicy policy = CachePolicy.of(executionResult);
+        return null == policy || areErrorsPresent(executionResult) ? null : policy.headerValue();
+    }
+
+    private static void setCacheControl(org.springframework.http.HttpHeaders headers, ExecutionResult executionResult) {
+        String cacheControl = cacheControl(executionResult);
+        if (null != cacheControl) {
+            headers.setCacheControl(cacheControl);
+        }
+    }
+
+    /**
+     * @return extensions of the result without the {@link CachePolicy}, which is written as a header, or null
+     */
+    private static Map<Object, Object> extensionsOf(ExecutionResult executionResult) {
+        Map<Object, Object> resultExtensions = executionResult.getExtensions();
+        if (null == resultExtensions || !resultExtensions.containsKey(CachePolicy.extensionKey)) {
+            return resultExtensions;
+        }
+
+        Map<Object, Object> withoutPolicy = new LinkedHashMap<>(resultExtensions);
+        withoutPolicy.remove(CachePolicy.extensionKey);
+        return withoutPolicy.isEmpty() ? null : withoutPolicy;
+    }
+
     private static boolean areErrorsPresent(ExecutionResult executionResult) {
         return 0 != executionResult.getErrors().size();
     }
@@ -183,14 +645,22 @@ public class GraphQLHttpServletUtil {
 
         private final String operation;
 
+        private final Map<String, Object> extensions;
+
         @JsonCreator
         public Payload(@JsonProperty(GraphQLHttpServletUtil.query) String query
                 , @JsonProperty(GraphQLHttpServletUtil.variables) Map<String, Object> variables
-                , @JsonProperty(GraphQLHttpServletUtil.operation) String operation) {
+                , @JsonProperty(GraphQLHttpServletUtil.operation) String operation
+                , @JsonProperty(GraphQLHttpServletUtil.extensions) Map<String, Object> extensions) {
 
             this.query = query;
             this.variables = variables;
             this.operation = operation;
+            this.extensions = extensions;
+        }
+
+        public Payload(String query, Map<String, Object> variables, String operation) {
+            this(query, variables, operation, null);
         }
 
         public String getQuery() {
@@ -205,12 +675,36 @@ public class GraphQLHttpServletUtil {
             return operation;
         }
 
+        public Map<String, Object> getExtensions() {
+            return extensions;
+        }
+
+        /**
+         * @return {@code extensions.persistedQuery.sha256Hash} or null
+         */
+        @JsonIgnore
+        public String getPersistedQueryHash() {
+            Object hash = getPersistedQuery().get(sha256Hash);
+            return hash instanceof String ? (String) hash : null;
+        }
+
+        boolean isPersistedQueryVersionSupported() {
+            Object persistedQueryVersion = getPersistedQuery().get(version);
+            return null == persistedQueryVersion || "1".equals(String.valueOf(persistedQueryVersion));
+        }
+
+        private Map<?, ?> getPersistedQuery() {
+            Object value = null == extensions ? null : extensions.get(persistedQuery);
+            return value instanceof Map ? (Map<?, ?>) value : Collections.emptyMap();
+        }
+
         @Override
         public String toString() {
             return new StringJoiner(", ", Payload.class.getSimpleName() + "[", "]")
                     .add("query='" + query + "'")
                     .add("variables=" + variables)
                     .add("operation='" + operation + "'")
+                    .add("extensions=" + extensions)
                     .toString();
         }
     }
@@ -4,6 +4,7 @@
 
 package org.babich.graphql;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import graphql.ErrorClassification;
 import graphql.ErrorType;
 import graphql.ExecutionInput;
@@ -11,18 +12,31 @@ import graphql.GraphQLError;
 import graphql.execution.preparsed.PreparsedDocumentEntry;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.language.SourceLocation;
+import org.babich.graphql.analysis.AnalyzedDocumentEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.concurrent.ConcurrentMapCache;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
- * Class that allows to caching of preparsed graphql queries
+ * Class that allows to caching of preparsed graphql queries.
+ * <p>
+ * In the single-flight mode only one thread parses and validates a given query, the other threads
+ * that request the same query at the same time wait for that result instead of computing it again.
+ * <p>
+ * The documents are cached as {@link AnalyzedDocumentEntry} whose {@link org.babich.graphql.analysis.DocumentAnalysis}
+ * is put to the {@link graphql.GraphQLContext} of every request, so the depth and cost checks do not traverse
+ * a cached document again.
+ * <p>
+ * The entries of a Caffeine or a concurrent map cache are refreshed one by one, any other cache is cleared.
  */
-public class GraphQLQueryCache implements PreparsedDocumentProvider {
+public class GraphQLQueryCache implements RefreshableDocumentProvider {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -30,10 +44,29 @@ public class GraphQLQueryCache implements PreparsedDocumentProvider {
 
     private final Function<ExecutionInput, ExecutionInput> queryResolver;
 
+    private final boolean singleFlight;
 
-    public GraphQLQueryCache(Cache cache, Function<ExecutionInput, ExecutionInput> queryResolver) {
+    private final GraphQLQueryCacheKeyStrategy keyStrategy;
+
+
+    public GraphQLQueryCache(Cache cache
+            , Function<ExecutionInput, ExecutionInput> queryResolver
+            , boolean singleFlight
+            , GraphQLQueryCacheKeyStrategy keyStrategy) {
         this.cache = cache;
         this.queryResolver = queryResolver;
+        this.singleFlight = singleFlight;
+        this.keyStrategy = keyStrategy;
+    }
+
+    public GraphQLQueryCache(Cache cache
+            , Function<ExecutionInput, ExecutionInput> queryResolver
+            , boolean singleFlight) {
+        this(cache, queryResolver, singleFlight, new GraphQLQueryCacheKeyStrategy.NormalizedQueryHash());
+    }
+
+    public GraphQLQueryCache(Cache cache, Function<ExecutionInput, ExecutionInput> queryResolver) {
+        this(cache, queryResolver, true);
     }
 
     public GraphQLQueryCache() {
@@ -41,7 +74,7 @@ public class GraphQLQueryCache implements PreparsedDocumentProvider {
     }
 
 
-    private PreparsedDocumentEntry errorResult(Exception e) {
+    static PreparsedDocumentEntry errorResult(Throwable e) {
         return new PreparsedDocumentEntry(new GraphQLError() {
             @Override
             public String getMessage() {
@@ -60,21 +93,59 @@ public class GraphQLQueryCache implements PreparsedDocumentProvider {
         });
     }
 
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return hit, miss and eviction statistics if the cache is a Caffeine cache that records them
+     */
+    public Optional<CacheStats> getStats() {
+        Object nativeCache = cache.getNativeCache();
+        if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+            return Optional.empty();
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache;
+
+        return caffeineCache.policy().isRecordingStats() ? Optional.of(caffeineCache.stats()) : Optional.empty();
+    }
+
+    public boolean isSingleFlight() {
+        return singleFlight;
+    }
+
     @Override
     public PreparsedDocumentEntry getDocument(ExecutionInput executionInput
             , Function<ExecutionInput, PreparsedDocumentEntry> computeFunction) {
 
         String query = executionInput.getQuery();
 
+        Object key = keyStrategy.cacheKey(executionInput);
+
+        Function<ExecutionInput, PreparsedDocumentEntry> resolveAndCompute = computeFunction.compose(queryResolver)
+                .andThen(AnalyzedDocumentEntry::analyzed);
+
         try {
 
-            PreparsedDocumentEntry entry = cache.get(query, PreparsedDocumentEntry.class);
+            if (singleFlight) {
+                return AnalyzedDocumentEntry.publish(executionInput
+                        , cache.get(key, () -> resolveAndCompute.apply(executionInput)));
+            }
+
+            PreparsedDocumentEntry entry = cache.get(key, PreparsedDocumentEntry.class);
 
             if(null == entry){
-                cache.putIfAbsent(query, entry = computeFunction.compose(queryResolver).apply(executionInput));
+                cache.putIfAbsent(key, entry = resolveAndCompute.apply(executionInput));
             }
 
-            return entry;
+            return AnalyzedDocumentEntry.publish(executionInput, entry);
+
+        } catch (Cache.ValueRetrievalException e) {
+
+            logger.warn("GraphQl gets error resolving query name {}.", query, e.getCause());
+
+            return errorResult(null == e.getCause() ? e : e.getCause());
 
         } catch (Exception e) {
 
@@ -84,4 +155,31 @@ public class GraphQLQueryCache implements PreparsedDocumentProvider {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void refresh(UnaryOperator<PreparsedDocumentEntry> refresh) {
+        Object nativeCache = cache.getNativeCache();
+
+        ConcurrentMap<Object, Object> entries;
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+            entries = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap();
+        } else if (nativeCache instanceof ConcurrentMap) {
+            entries = (ConcurrentMap<Object, Object>) nativeCache;
+        } else {
+            cache.clear();
+            return;
+        }
+
+        entries.forEach((key, value) -> {
+            PreparsedDocumentEntry entry = value instanceof PreparsedDocumentEntry
+                    ? refresh.apply((PreparsedDocumentEntry) value) : null;
+
+            if (null == entry) {
+                entries.remove(key, value);
+            } else if (entry != value) {
+                entries.replace(key, value, entry);
+            }
+        });
+    }
+
 }
@@ -0,0 +1,199 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ExecutionInput;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Strategy of building the key under which {@link GraphQLQueryCache} keeps a preparsed document.
+ */
+public interface GraphQLQueryCacheKeyStrategy {
+
+    Object cacheKey(ExecutionInput executionInput);
+
+
+    /**
+     * The raw query string is the cache key.
+     */
+    GraphQLQueryCacheKeyStrategy rawQuery = ExecutionInput::getQuery;
+
+
+    /**
+     * Default implementation of {@link GraphQLQueryCacheKeyStrategy}.
+     * The query is normalized on the lexical level, comments and insignificant whitespace and commas are dropped,
+     * then it is hashed to 128 bits, so the key does not keep the query text and the same query formatted
+     * in different ways gets the same key.
+     */
+    class NormalizedQueryHash implements GraphQLQueryCacheKeyStrategy {
+
+        private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported.", e);
+            }
+        });
+
+        @Override
+        public Object cacheKey(ExecutionInput executionInput) {
+            String query = executionInput.getQuery();
+            if (null == query) {
+                return new QueryHashKey(0, 0, executionInput.getOperationName());
+            }
+
+            MessageDigest digest = sha256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(normalize(query).getBytes(StandardCharsets.UTF_8)));
+
+            return new QueryHashKey(hash.getLong(), hash.getLong(), executionInput.getOperationName());
+        }
+
+        /**
+         * Drops comments, whitespace and commas that are not a part of a string value,
+         * a single space is kept only where two names or numbers would be merged otherwise.
+         */
+        static String normalize(String query) {
+            StringBuilder builder = new StringBuilder(query.length());
+            boolean separated = false;
+            int length = query.length();
+            int i = 0;
+
+            while (i < length) {
+                char c = query.charAt(i);
+
+                if (isIgnored(c)) {
+                    separated = true;
+                    i++;
+                    continue;
+                }
+
+                if ('#' == c) {
+                    while (i < length && '\n' != query.charAt(i) && '\r' != query.charAt(i)) {
+                        i++;
+                    }
+                    separated = true;
+                    continue;
+                }
+
+                if (separated && builder.length() > 0 && needsSeparator(builder.charAt(builder.length() - 1), c)) {
+                    builder.append(' ');
+                }
+                separated = false;
+
+                if ('"' == c) {
+                    i = query.startsWith("\"\"\"", i) ? copyBlockString(query, i, builder)
+                            : copyString(query, i, builder);
+                    continue;
+                }
+
+                builder.append(c);
+                i++;
+            }
+
+            return builder.toString();
+        }
+
+        private static int copyString(String query, int start, StringBuilder builder) {
+            builder.append('"');
+            int i = start + 1;
+            while (i < query.length()) {
+                char c = query.charAt(i++);
+                builder.append(c);
+                if ('\\' == c && i < query.length()) {
+                    builder.append(query.charAt(i++));
+                } else if ('"' == c || '\n' == c || '\r' == c) {
+                    break;
+                }
+            }
+            return i;
+        }
+
+        private static int copyBlockString(String query, int start, StringBuilder builder) {
+            int end = start + 3;
+            while (end < query.length()) {
+                if (query.startsWith("\\\"\"\"", end)) {
+                    end += 4;
+                } else if (query.startsWith("\"\"\"", end)) {
+                    end += 3;
+                    break;
+                } else {
+                    end++;
+                }
+            }
+            end = Math.min(end, query.length());
+            builder.append(query, start, end);
+            return end;
+        }
+
+        private static boolean isIgnored(char c) {
+            return ' ' == c || '\t' == c || '\n' == c || '\r' == c || ',' == c || '\uFEFF' == c;
+        }
+
+        private static boolean needsSeparator(char previous, char next) {
+            return isNamePart(previous) && isNamePart(next) || '"' == previous && '"' == next;
+        }
+
+        private static boolean isNamePart(char c) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || '_' == c || '-' == c || '.' == c;
+        }
+    }
+
+
+    /**
+     * 128-bit hash of a normalized query together with the operation name.
+     */
+    final class QueryHashKey {
+
+        private final long mostSignificantBits;
+
+        private final long leastSignificantBits;
+
+        private final String operationName;
+
+        public QueryHashKey(long mostSignificantBits, long leastSignificantBits, String operationName) {
+            this.mostSignificantBits = mostSignificantBits;
+            this.leastSignificantBits = leastSignificantBits;
+            this.operationName = operationName;
+        }
+
+        public String getOperationName() {
+            return operationName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QueryHashKey)) {
+                return false;
+            }
+            QueryHashKey that = (QueryHashKey) o;
+            return mostSignificantBits == that.mostSignificantBits
+                    && leastSignificantBits == that.leastSignificantBits
+                    && Objects.equals(operationName, that.operationName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(mostSignificantBits ^ leastSignificantBits) + Objects.hashCode(operationName);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", QueryHashKey.class.getSimpleName() + "[", "]")
+                    .add("hash=" + String.format("%016x%016x", mostSignificantBits, leastSignificantBits))
+                    .add("operationName='" + operationName + "'")
+                    .toString();
+        }
+    }
+}
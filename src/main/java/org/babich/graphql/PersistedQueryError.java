@@ -0,0 +1,67 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ErrorClassification;
+import graphql.ErrorType;
+import graphql.GraphQLError;
+import graphql.language.SourceLocation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Errors of automatic persisted queries in the format expected by Apollo clients.
+ * The client sends the query text again when it gets {@code PersistedQueryNotFound}.
+ */
+public class PersistedQueryError implements GraphQLError {
+
+    public static final String notFound = "PersistedQueryNotFound";
+    public static final String notSupported = "PersistedQueryNotSupported";
+    public static final String hashMismatch = "provided sha does not match query";
+
+    private final String message;
+
+    private final String code;
+
+
+    private PersistedQueryError(String message, String code) {
+        this.message = message;
+        this.code = code;
+    }
+
+    public static PersistedQueryError notFound() {
+        return new PersistedQueryError(notFound, "PERSISTED_QUERY_NOT_FOUND");
+    }
+
+    public static PersistedQueryError notSupported() {
+        return new PersistedQueryError(notSupported, "PERSISTED_QUERY_NOT_SUPPORTED");
+    }
+
+    public static PersistedQueryError hashMismatch() {
+        return new PersistedQueryError(hashMismatch, "BAD_USER_INPUT");
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public List<SourceLocation> getLocations() {
+        return null;
+    }
+
+    @Override
+    public ErrorClassification getErrorType() {
+        return ErrorType.ValidationError;
+    }
+
+    @Override
+    public Map<String, Object> getExtensions() {
+        return Collections.singletonMap("code", code);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import org.springframework.cache.Cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Store of automatic persisted queries (APQ), maps a sha256 hash of a query to the query text.
+ * Implementations have to be thread safe and are expected to be bounded.
+ * The hex hash is case-insensitive, clients might send it in upper case.
+ */
+public interface PersistedQueryStore {
+
+    /**
+     * @param sha256Hash hex sha256 hash of the query in any case
+     * @return query text or null if the hash is unknown
+     */
+    String getQuery(String sha256Hash);
+
+    /**
+     * @param sha256Hash hex sha256 hash of the query in any case, the caller has checked it matches the query
+     * @param query      query text
+     */
+    void putQuery(String sha256Hash, String query);
+
+
+    /**
+     * Lowercase hex sha256 hash of the query text as Apollo clients compute it.
+     */
+    static String sha256Hex(String query) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+
+        byte[] hash = digest.digest(query.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+
+    /**
+     * Default local in-memory implementation of {@link PersistedQueryStore} based on a {@link Cache},
+     * the cache defines the bound of the store.
+     */
+    class CacheStore implements PersistedQueryStore {
+
+        private final Cache cache;
+
+        public CacheStore(Cache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public String getQuery(String sha256Hash) {
+            return cache.get(sha256Hash.toLowerCase(Locale.ROOT), String.class);
+        }
+
+        @Override
+        public void putQuery(String sha256Hash, String query) {
+            cache.putIfAbsent(sha256Hash.toLowerCase(Locale.ROOT), query);
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", CacheStore.class.getSimpleName() + "[", "]")
+                    .add("cache=" + cache.getName())
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.language.Document;
+import graphql.language.Node;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Weighs a cached {@link PreparsedDocumentEntry} by the estimated heap size of its document in bytes.
+ * The estimate is the number of AST nodes multiplied by {@link #bytesPerNode}, it is computed once
+ * when the entry is put to the cache.
+ */
+public class PreparsedDocumentWeigher implements Weigher<Object, Object> {
+
+    static final int bytesPerNode = 128;
+
+    static final int entryOverhead = 256;
+
+
+    @Override
+    public int weigh(Object key, Object value) {
+        if (!(value instanceof PreparsedDocumentEntry)) {
+            return entryOverhead;
+        }
+
+        PreparsedDocumentEntry entry = (PreparsedDocumentEntry) value;
+        if (entry.hasErrors() || null == entry.getDocument()) {
+            return entryOverhead;
+        }
+
+        long weight = entryOverhead + (long) countNodes(entry.getDocument()) * bytesPerNode;
+
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static int countNodes(Document document) {
+        int count = 0;
+
+        Deque<Node<?>> nodes = new ArrayDeque<>();
+        nodes.push(document);
+
+        while (!nodes.isEmpty()) {
+            Node<?> node = nodes.pop();
+            count++;
+            for (Node<?> child : node.getChildren()) {
+                if (null != child) {
+                    nodes.push(child);
+                }
+            }
+        }
+        return count;
+    }
+}
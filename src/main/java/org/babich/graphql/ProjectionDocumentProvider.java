@@ -0,0 +1,140 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import org.babich.graphql.analysis.AnalyzedDocumentEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Provider of preparsed documents that keeps the projection documents apart from the open queries.
+ * <p>
+ * The set of projections is fixed, so their documents are pinned in an immutable map that is never evicted,
+ * a new projection document is published by copying the map. Open queries are delegated to
+ * the bounded cache, so a burst of unique open queries cannot evict a projection.
+ * The pinned documents keep their {@link org.babich.graphql.analysis.DocumentAnalysis} as well.
+ */
+public class ProjectionDocumentProvider implements RefreshableDocumentProvider {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Function<String, String> projectionQueryResolver;
+
+    private final PreparsedDocumentProvider openQueries;
+
+    private volatile Map<String, PreparsedDocumentEntry> projectionDocuments = Collections.emptyMap();
+
+
+    /**
+     * @param projectionQueryResolver resolves a projection name to the query text, null if the name is unknown
+     * @param openQueries             provider of the open query documents
+     */
+    public ProjectionDocumentProvider(Function<String, String> projectionQueryResolver
+            , PreparsedDocumentProvider openQueries) {
+        this.projectionQueryResolver = projectionQueryResolver;
+        this.openQueries = openQueries;
+    }
+
+    public ProjectionDocumentProvider(Map<String, String> documentProjectionQueries
+            , PreparsedDocumentProvider openQueries) {
+        this((null == documentProjectionQueries ? Collections.<String, String>emptyMap()
+                : documentProjectionQueries)::get, openQueries);
+    }
+
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput
+            , Function<ExecutionInput, PreparsedDocumentEntry> computeFunction) {
+
+        if (isNotProjection((GraphQLContext) executionInput.getContext())) {
+            return openQueries.getDocument(executionInput, computeFunction);
+        }
+
+        PreparsedDocumentEntry entry = projectionDocuments.get(executionInput.getQuery());
+
+        return AnalyzedDocumentEntry.publish(executionInput
+                , null != entry ? entry : pin(executionInput, computeFunction));
+    }
+
+    /**
+     * @return immutable view of the pinned projection documents by projection name
+     */
+    public Map<String, PreparsedDocumentEntry> getProjectionDocuments() {
+        return projectionDocuments;
+    }
+
+    /**
+     * @return provider of the open query documents, e.g. {@link GraphQLQueryCache} with the cache statistics
+     */
+    public PreparsedDocumentProvider getOpenQueries() {
+        return openQueries;
+    }
+
+    /**
+     * Refreshes the pinned documents and the open queries if they are refreshable, a dropped projection
+     * is pinned again by its next request.
+     */
+    @Override
+    public void refresh(UnaryOperator<PreparsedDocumentEntry> refresh) {
+        synchronized (this) {
+            Map<String, PreparsedDocumentEntry> documents = new HashMap<>();
+            projectionDocuments.forEach((name, entry) -> {
+                PreparsedDocumentEntry refreshed = refresh.apply(entry);
+                if (null != refreshed) {
+                    documents.put(name, refreshed);
+                }
+            });
+            projectionDocuments = Collections.unmodifiableMap(documents);
+        }
+
+        if (openQueries instanceof RefreshableDocumentProvider) {
+            ((RefreshableDocumentProvider) openQueries).refresh(refresh);
+        }
+    }
+
+    private synchronized PreparsedDocumentEntry pin(ExecutionInput executionInput
+            , Function<ExecutionInput, PreparsedDocumentEntry> computeFunction) {
+
+        String name = executionInput.getQuery();
+
+        PreparsedDocumentEntry entry = projectionDocuments.get(name);
+        if (null != entry) {
+            return entry;
+        }
+
+        String query;
+        if (null == (query = projectionQueryResolver.apply(name))) {
+            logger.warn("GraphQl gets error resolving query name {}.", name);
+            return GraphQLQueryCache.errorResult(
+                    new IllegalArgumentException("Query name {" + name + "} is not found."));
+        }
+
+        entry = AnalyzedDocumentEntry.analyzed(
+                computeFunction.apply(executionInput.transform(builder -> builder.query(query))));
+
+        Map<String, PreparsedDocumentEntry> documents = new HashMap<>(projectionDocuments);
+        documents.put(name, entry);
+        projectionDocuments = Collections.unmodifiableMap(documents);
+
+        return entry;
+    }
+
+    public static boolean isNotProjection(GraphQLContext context) {
+        if (null == context) {
+            return true;
+        }
+        return !context.getOrDefault(GraphQLContextBuilder.isProjection, false);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.ParseAndValidate;
+import graphql.ParseAndValidateResult;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Parses and validates all the projection queries against the schema when the application context starts,
+ * so the first request of a projection does not pay for it.
+ * The preparsed documents are put to the {@link PreparsedDocumentProvider} of the {@link GraphQL} unless another
+ * one is given, so the entries are the ones the requests get, e.g. bound to the schema by
+ * {@link org.babich.graphql.schema.SchemaBoundDocumentProvider}. The context fails to start if any of projections
+ * is invalid.
+ * <p>The queries are parsed and validated the way {@link GraphQL} does it for a request, the parse and validation
+ * hooks of its {@link Instrumentation} are called, e.g. the metrics of parsing and validation, but none of the
+ * execution hooks.</p>
+ */
+public class ProjectionQueriesWarmUp implements SmartInitializingSingleton {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final GraphQL graphQL;
+
+    private final PreparsedDocumentProvider preparsedDocumentProvider;
+
+    private final Map<String, String> documentProjectionQueries;
+
+
+    public ProjectionQueriesWarmUp(GraphQL graphQL, Map<String, String> documentProjectionQueries) {
+        this(graphQL, graphQL.getPreparsedDocumentProvider() instanceof NoOpPreparsedDocumentProvider ? null
+                : graphQL.getPreparsedDocumentProvider(), documentProjectionQueries);
+    }
+
+    public ProjectionQueriesWarmUp(GraphQL graphQL
+            , PreparsedDocumentProvider preparsedDocumentProvider
+            , Map<String, String> documentProjectionQueries) {
+        this.graphQL = graphQL;
+        this.preparsedDocumentProvider = preparsedDocumentProvider;
+        this.documentProjectionQueries = null == documentProjectionQueries ? Collections.emptyMap()
+                : documentProjectionQueries;
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    /**
+     * @throws IllegalStateException if any of projections is invalid
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+
+        Map<String, String> invalidProjections = new TreeMap<>();
+
+        documentProjectionQueries.forEach((name, query) -> {
+            PreparsedDocumentEntry entry = preparse(name, query);
+            if (entry.hasErrors()) {
+                invalidProjections.put(name, entry.getErrors().stream()
+                        .map(GraphQLError::getMessage)
+                        .collect(Collectors.joining("; ")));
+            }
+        });
+
+        if (!invalidProjections.isEmpty()) {
+            throw new IllegalStateException("GraphQL projection queries are invalid: " + invalidProjections);
+        }
+
+        logger.info("GraphQL projection queries ({}) have been parsed and validated in {} ms."
+                , documentProjectionQueries.size()
+                , TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private PreparsedDocumentEntry preparse(String name, String query) {
+
+        if (null == preparsedDocumentProvider) {
+            return parseAndValidate(ExecutionInput.newExecutionInput().query(query).build());
+        }
+
+        ExecutionInput input = ExecutionInput.newExecutionInput()
+                .query(name)
+                .context(new GraphQLContextFactory.ServletGraphQLContextFactory().projection(null))
+                .build();
+
+        return preparsedDocumentProvider.getDocument(input, this::parseAndValidate);
+    }
+
+    private PreparsedDocumentEntry parseAndValidate(ExecutionInput executionInput) {
+
+        GraphQLSchema schema = graphQL.getGraphQLSchema();
+        Instrumentation instrumentation = graphQL.getInstrumentation();
+        InstrumentationState state = instrumentation.createState(
+                new InstrumentationCreateStateParameters(schema, executionInput));
+
+        InstrumentationContext<Document> parse = instrumentation.beginParse(
+                new InstrumentationExecutionParameters(executionInput, schema, state));
+
+        ParseAndValidateResult result = ParseAndValidate.parse(executionInput);
+        parse.onCompleted(result.getDocument(), result.getSyntaxException());
+
+        if (result.isFailure()) {
+            return new PreparsedDocumentEntry(result.getErrors());
+        }
+
+        InstrumentationContext<List<ValidationError>> validation = instrumentation.beginValidation(
+                new InstrumentationValidationParameters(executionInput, result.getDocument(), schema, state));
+
+        List<ValidationError> errors = ParseAndValidate.validate(schema, result.getDocument());
+        validation.onCompleted(errors, null);
+
+        return errors.isEmpty() ? new PreparsedDocumentEntry(result.getDocument())
+                : new PreparsedDocumentEntry(errors);
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import graphql.ExecutionResult;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of serialized responses of projections, it is meant for the idempotent GET requests of projections.
+ * <p>
+ * A response is kept as the JSON bytes under the projection name and the variables,
+ * see {@link GraphQLHttpServletUtil#getVariables}, for the time to live of its projection.
+ * The projections without a time to live are not cached, so only the projections whose result does not depend
+ * on the user of the request should be given one. The responses with errors are not cached either.
+ * Concurrent requests of a missing response wait for the one that executes the projection, the cache keeps
+ * the future of the response, so the projection is executed by the request thread out of the lock of the cache.
+ * Every response has an ETag, so the client might revalidate it by {@code If-None-Match}.
+ */
+public class ProjectionResponseCache {
+
+    private final Map<String, Duration> timesToLive;
+
+    private final AsyncCache<Object, CachedResponse> cache;
+
+
+    /**
+     * @param timesToLive   time to live of the responses by projection name
+     * @param maximumWeight maximum size of the cached responses in bytes
+     */
+    public ProjectionResponseCache(Map<String, Duration> timesToLive, long maximumWeight) {
+        this.timesToLive = null == timesToLive ? Collections.emptyMap() : new HashMap<>(timesToLive);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Object key, CachedResponse response) -> response.getBody().length)
+                .expireAfter(new ResponseExpiry())
+                .recordStats()
+                .buildAsync();
+    }
+
+
+    /**
+     * @param projection projection name
+     * @param variables  variables of the projection
+     * @param execution  executes the projection if the response is not cached
+     * @param objectMapper json mapper
+     * @return cached or new response
+     */
+    public CachedResponse get(String projection
+            , Map<String, Object> variables
+            , Supplier<ExecutionResult> execution
+            , ObjectMapper objectMapper) {
+
+        if (!isCached(projection)) {
+            return CachedResponse.of(projection, execution.get(), objectMapper);
+        }
+
+        CompletableFuture<CachedResponse> execute = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> response = cache.get(Arrays.asList(projection
+                , null == variables ? Collections.emptyMap() : new HashMap<>(variables)), (key, executor) -> execute);
+
+        if (response == execute) {
+            try {
+                execute.complete(CachedResponse.of(projection, execution.get(), objectMapper));
+            } catch (RuntimeException | Error e) {
+                execute.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    public boolean isCached(String projection) {
+        Duration timeToLive = timesToLive.get(projection);
+        return null != timeToLive && !timeToLive.isZero() && !timeToLive.isNegative();
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public Cache<Object, CachedResponse> getCache() {
+        return cache.synchronous();
+    }
+
+
+    private class ResponseExpiry implements Expiry<Object, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(Object key, CachedResponse response, long currentTime) {
+            return response.isError() ? 0 : timesToLive.get(response.getProjection()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+
+    /**
+     * Serialized response of a projection.
+     */
+    public static final class CachedResponse {
+
+        private final String projection;
+
+        private final byte[] body;
+
+        private final boolean error;
+
+        private final String etag;
+
+        private final String cacheControl;
+
+
+        public CachedResponse(String projection, byte[] body, boolean error, String cacheControl) {
+            this.projection = projection;
+            this.body = body;
+            this.error = error;
+            this.etag = "\"0" + DigestUtils.md5DigestAsHex(body) + '"';
+            this.cacheControl = cacheControl;
+        }
+
+        public CachedResponse(String projection, byte[] body, boolean error) {
+            this(projection, body, error, null);
+        }
+
+
+        static CachedResponse of(String projection, ExecutionResult executionResult, ObjectMapper objectMapper) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                GraphQLHttpServletUtil.writeResult(executionResult, objectMapper, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new CachedResponse(projection
+                    , outputStream.toByteArray()
+                    , !executionResult.getErrors().isEmpty()
+                    , GraphQLHttpServletUtil.cacheControl(executionResult));
+        }
+
+        /**
+         * @param ifNoneMatch value of the {@code If-None-Match} header, might be null
+         * @return true if the client has the same response
+         */
+        public boolean isNotModified(String ifNoneMatch) {
+            if (error || null == ifNoneMatch) {
+                return false;
+            }
+
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getProjection() {
+            return projection;
+        }
+
+        /**
+         * @return JSON bytes in UTF-8, the array is shared and must not be changed
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return value of the {@code Cache-Control} header, see {@link GraphQLHttpServletUtil#cacheControl}, or null
+         */
+        public String getCacheControl() {
+            return cacheControl;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", CachedResponse.class.getSimpleName() + "[", "]")
+                    .add("projection='" + projection + "'")
+                    .add("length=" + body.length)
+                    .add("error=" + error)
+                    .add("etag='" + etag + "'")
+                    .toString();
+        }
+    }
+}
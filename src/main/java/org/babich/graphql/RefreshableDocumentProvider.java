@@ -0,0 +1,25 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Provider of preparsed documents whose cached entries might be refreshed in place, e.g. validated again
+ * after the schema is reloaded.
+ */
+public interface RefreshableDocumentProvider extends PreparsedDocumentProvider {
+
+    /**
+     * Replaces every cached entry by the result of the function, the entries mapped to null are dropped.
+     *
+     * @param refresh function of a cached entry
+     */
+    void refresh(UnaryOperator<PreparsedDocumentEntry> refresh);
+
+}
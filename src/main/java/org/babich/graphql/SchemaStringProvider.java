@@ -6,6 +6,10 @@ package org.babich.graphql;
 
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Finding a graphQL schema in the project.
@@ -14,5 +18,20 @@ public interface SchemaStringProvider {
 
     String schemaStrings() throws IOException;
 
-}
+    /**
+     * @return the schema split by its sources, e.g. files, by source name, every source is parsed separately,
+     * see {@link org.babich.graphql.schema.DirectiveExtensionSchemaParser#parse(Map)}
+     */
+    default Map<String, String> schemaSources() throws IOException {
+        return Collections.singletonMap("schema", schemaStrings());
+    }
+
+    /**
+     * @return directories of the file system the sources are read from, they are watched by
+     * {@link org.babich.graphql.schema.ReloadableGraphQL}, empty if the schema cannot be changed
+     */
+    default Collection<Path> schemaLocations() throws IOException {
+        return Collections.emptyList();
+    }
 
+}
@@ -0,0 +1,55 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+
+/**
+ * Preparsed document that keeps its {@link DocumentAnalysis}, so the analysis is cached along with the document.
+ */
+public class AnalyzedDocumentEntry extends PreparsedDocumentEntry {
+
+    private transient volatile DocumentAnalysis analysis;
+
+
+    public AnalyzedDocumentEntry(PreparsedDocumentEntry entry) {
+        super(entry.getDocument());
+        this.analysis = new DocumentAnalysis();
+    }
+
+
+    /**
+     * @return the entry that keeps the analysis of its document, or the same entry if it has errors
+     */
+    public static PreparsedDocumentEntry analyzed(PreparsedDocumentEntry entry) {
+        if (null == entry || entry.hasErrors() || entry instanceof AnalyzedDocumentEntry) {
+            return entry;
+        }
+        return new AnalyzedDocumentEntry(entry);
+    }
+
+    /**
+     * Puts the analysis of the entry to the {@link graphql.GraphQLContext} of the request.
+     *
+     * @return the same entry
+     */
+    public static PreparsedDocumentEntry publish(ExecutionInput executionInput, PreparsedDocumentEntry entry) {
+        if (entry instanceof AnalyzedDocumentEntry) {
+            executionInput.getGraphQLContext().put(DocumentAnalysis.contextKey
+                    , ((AnalyzedDocumentEntry) entry).getAnalysis());
+        }
+        return entry;
+    }
+
+    public DocumentAnalysis getAnalysis() {
+        DocumentAnalysis result = analysis;
+        if (null == result) {
+            // the analysis is not serialized with the document
+            analysis = result = new DocumentAnalysis();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionResult;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.validation.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * {@link MaxQueryComplexityInstrumentation} that checks the complexity on every request, including the requests
+ * of preparsed documents that skip the validation.
+ * The complexity is the {@link QueryCost} of the operation, the complexity that does not depend on the variables
+ * is kept by the {@link DocumentAnalysis} of the preparsed document, so the document is traversed once while it
+ * is cached.
+ */
+public class CachedMaxQueryComplexityInstrumentation extends MaxQueryComplexityInstrumentation {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int maxComplexity;
+
+    private final FieldComplexityCalculator calculator;
+
+
+    public CachedMaxQueryComplexityInstrumentation(int maxComplexity) {
+        this(maxComplexity, (environment, childComplexity) -> childComplexity + 1);
+    }
+
+    public CachedMaxQueryComplexityInstrumentation(int maxComplexity, FieldComplexityCalculator calculator) {
+        super(maxComplexity, calculator);
+        this.maxComplexity = maxComplexity;
+        this.calculator = calculator;
+    }
+
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters) {
+
+        QueryCost complexity = DocumentAnalysis.of(parameters.getExecutionContext())
+                .cost(parameters.getExecutionContext(), calculator);
+
+        if (complexity.getCost() > maxComplexity) {
+            logger.debug("The query complexity {} exceeds the maximum {}.", complexity.getCost(), maxComplexity);
+            throw mkAbortException(complexity.getCost(), maxComplexity);
+        }
+
+        return super.beginExecuteOperation(parameters);
+    }
+
+    public int getMaxComplexity() {
+        return maxComplexity;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionResult;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.validation.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * {@link MaxQueryDepthInstrumentation} that checks the depth on every request, including the requests
+ * of preparsed documents that skip the validation.
+ * The depth that does not depend on the variables is kept by the {@link DocumentAnalysis} of the preparsed document,
+ * so the document is traversed once while it is cached.
+ */
+public class CachedMaxQueryDepthInstrumentation extends MaxQueryDepthInstrumentation {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int maxDepth;
+
+
+    public CachedMaxQueryDepthInstrumentation(int maxDepth) {
+        super(maxDepth);
+        this.maxDepth = maxDepth;
+    }
+
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters) {
+
+        QueryDepth depth = DocumentAnalysis.of(parameters.getExecutionContext())
+                .depth(parameters.getExecutionContext());
+
+        if (depth.getDepth() > maxDepth) {
+            logger.debug("The query depth {} exceeds the maximum {}.", depth.getDepth(), maxDepth);
+            throw mkAbortException(depth.getDepth(), maxDepth);
+        }
+
+        return super.beginExecuteOperation(parameters);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLFieldDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complexity of a field with the weight and the multipliers of the {@code @cost} directive:
+ * <pre>
+ *     directive @cost(weight: Int = 1, multipliers: [String!]) on FIELD_DEFINITION
+ *
+ *     type Query {
+ *         orders(first: Int, after: String, last: Int, before: String): OrderConnection
+ *              @connection(for: "Order") @cost(weight: 2)
+ *     }
+ * </pre>
+ * The complexity is {@code (weight + complexity of the selected sub-fields) * multiplier}, where the multiplier is
+ * the largest value of the arguments listed in {@code multipliers}. Fields of {@code @connection} are multiplied by
+ * {@code first} or {@code last} unless {@code multipliers} are given. A field without the directive weighs 1.
+ * The complexity is limited by {@link Integer#MAX_VALUE}.
+ */
+public class CostFieldComplexityCalculator implements FieldComplexityCalculator {
+
+    public static final String costDirective = "cost";
+    public static final String weightArgument = "weight";
+    public static final String multipliersArgument = "multipliers";
+    public static final String connectionDirective = "connection";
+
+    public static final List<String> connectionMultipliers = Collections.unmodifiableList(Arrays.asList("first", "last"));
+
+
+    @Override
+    public int calculate(FieldComplexityEnvironment environment, int childComplexity) {
+        GraphQLFieldDefinition fieldDefinition = environment.getFieldDefinition();
+
+        long complexity = (long) weight(fieldDefinition) + childComplexity;
+        long multiplier = multiplier(multipliers(fieldDefinition), environment.getArguments());
+
+        return (int) Math.min(Integer.MAX_VALUE, complexity * multiplier);
+    }
+
+    static int weight(GraphQLFieldDefinition fieldDefinition) {
+        GraphQLDirective cost = fieldDefinition.getDirective(costDirective);
+        if (null == cost) {
+            return 1;
+        }
+
+        Object weight = argumentValue(cost.getArgument(weightArgument));
+        return weight instanceof Number ? Math.max(0, ((Number) weight).intValue()) : 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> multipliers(GraphQLFieldDefinition fieldDefinition) {
+        GraphQLDirective cost = fieldDefinition.getDirective(costDirective);
+
+        Object multipliers = null == cost ? null : argumentValue(cost.getArgument(multipliersArgument));
+        if (multipliers instanceof List) {
+            return (List<String>) multipliers;
+        }
+
+        return null == fieldDefinition.getDirective(connectionDirective) ? Collections.emptyList()
+                : connectionMultipliers;
+    }
+
+    private static long multiplier(List<String> multipliers, Map<String, Object> arguments) {
+        long multiplier = 1;
+        for (String name : multipliers) {
+            Object value = arguments.get(name);
+            if (value instanceof Number) {
+                multiplier = Math.max(multiplier, ((Number) value).longValue());
+            }
+        }
+        return Math.min(Integer.MAX_VALUE, multiplier);
+    }
+
+    private static Object argumentValue(GraphQLArgument argument) {
+        if (null == argument) {
+            return null;
+        }
+        return argument.hasSetValue() ? GraphQLArgument.getArgumentValue(argument)
+                : GraphQLArgument.getArgumentDefaultValue(argument);
+    }
+}
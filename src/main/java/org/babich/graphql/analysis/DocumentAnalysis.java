@@ -0,0 +1,80 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.GraphQLContext;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.execution.ExecutionContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Results of the analysis of a preparsed document that do not depend on the variables,
+ * i.e. the {@link QueryDepth} and {@link QueryCost} of its operations.
+ * <p>
+ * The analysis is kept by the {@link AnalyzedDocumentEntry} and is put to the {@link GraphQLContext}
+ * of every request that uses the entry, so for the cached documents the analysis is calculated once
+ * and the following requests do not traverse the document again.
+ * The results that depend on the variables are calculated on every request.
+ */
+public final class DocumentAnalysis {
+
+    public static final String contextKey = DocumentAnalysis.class.getName();
+
+    private final Map<String, QueryDepth> depths = new ConcurrentHashMap<>();
+
+    private final Map<List<Object>, QueryCost> costs = new ConcurrentHashMap<>();
+
+
+    /**
+     * @return the analysis of the request document or the empty analysis that is not shared with other requests
+     * if the document is not preparsed by a provider that keeps the analysis
+     */
+    public static DocumentAnalysis of(ExecutionContext executionContext) {
+        GraphQLContext context = executionContext.getGraphQLContext();
+        DocumentAnalysis analysis = null == context ? null : context.get(contextKey);
+        return null == analysis ? new DocumentAnalysis() : analysis;
+    }
+
+    public QueryDepth depth(ExecutionContext executionContext) {
+        String operationName = executionContext.getOperationDefinition().getName();
+
+        return reuse(depths, String.valueOf(operationName), () -> QueryDepth.calculate(
+                executionContext.getGraphQLSchema()
+                , executionContext.getDocument()
+                , operationName
+                , executionContext.getVariables()), QueryDepth::isVariableIndependent);
+    }
+
+    public QueryCost cost(ExecutionContext executionContext, FieldComplexityCalculator calculator) {
+        String operationName = executionContext.getOperationDefinition().getName();
+
+        return reuse(costs, Arrays.asList(calculator, String.valueOf(operationName)), () -> QueryCost.calculate(
+                executionContext.getGraphQLSchema()
+                , executionContext.getDocument()
+                , operationName
+                , executionContext.getVariables()
+                , calculator), QueryCost::isVariableIndependent);
+    }
+
+    private static <K, V> V reuse(Map<K, V> results, K key, Supplier<V> calculate
+            , Predicate<V> reusable) {
+        V result = results.get(key);
+        if (null != result) {
+            return result;
+        }
+
+        result = calculate.get();
+        if (reusable.test(result)) {
+            results.putIfAbsent(key, result);
+        }
+        return result;
+    }
+}
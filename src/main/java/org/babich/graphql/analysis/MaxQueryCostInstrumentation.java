@@ -0,0 +1,65 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionResult;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rejects an operation whose {@link QueryCost} is more than {@code maxCost} before it is executed.
+ * <p>
+ * Unlike {@link graphql.analysis.MaxQueryComplexityInstrumentation}, which runs on validation only and so is skipped
+ * for preparsed documents, the cost is checked on every request with its variables.
+ * The cost that does not depend on the variables is kept by the {@link DocumentAnalysis} of the preparsed document,
+ * so it lives as long as the document is cached.
+ */
+public class MaxQueryCostInstrumentation extends SimpleInstrumentation {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int maxCost;
+
+    private final FieldComplexityCalculator calculator;
+
+
+    public MaxQueryCostInstrumentation(int maxCost) {
+        this(maxCost, new CostFieldComplexityCalculator());
+    }
+
+    public MaxQueryCostInstrumentation(int maxCost, FieldComplexityCalculator calculator) {
+        this.maxCost = maxCost;
+        this.calculator = calculator;
+    }
+
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters) {
+
+        QueryCost cost = cost(parameters.getExecutionContext());
+
+        if (cost.getCost() > maxCost) {
+            logger.debug("The query cost {} exceeds the maximum {}.", cost.getCost(), maxCost);
+            throw new AbortExecutionException("maximum query cost exceeded " + cost.getCost() + " > " + maxCost);
+        }
+
+        return super.beginExecuteOperation(parameters);
+    }
+
+    public QueryCost cost(ExecutionContext executionContext) {
+        return DocumentAnalysis.of(executionContext).cost(executionContext, calculator);
+    }
+
+    public int getMaxCost() {
+        return maxCost;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.language.Argument;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.Node;
+import graphql.language.NodeTraverser;
+import graphql.language.NodeVisitorStub;
+import graphql.language.VariableReference;
+import graphql.schema.GraphQLSchema;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of an operation calculated by a {@link FieldComplexityCalculator}, e.g. {@link CostFieldComplexityCalculator}.
+ * <p>
+ * The cost does not depend on the variables if neither the multiplier arguments nor the {@code @skip}
+ * and {@code @include} directives of the operation refer to variables, so it might be reused for any request
+ * of the same document.
+ */
+public final class QueryCost {
+
+    private final int cost;
+
+    private final boolean variableIndependent;
+
+
+    public QueryCost(int cost, boolean variableIndependent) {
+        this.cost = cost;
+        this.variableIndependent = variableIndependent;
+    }
+
+
+    public static QueryCost calculate(GraphQLSchema schema
+            , Document document
+            , String operationName
+            , Map<String, Object> variables
+            , FieldComplexityCalculator calculator) {
+
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(schema)
+                .document(document)
+                .operationName(operationName)
+                .variables(variables)
+                .build();
+
+        CostVisitor visitor = new CostVisitor(calculator);
+        traverser.visitPostOrder(visitor);
+
+        return new QueryCost(visitor.complexityOf(null)
+                , !visitor.variableDependent && !hasConditionalVariables(document));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean isVariableIndependent() {
+        return variableIndependent;
+    }
+
+    /**
+     * The fields excluded by {@code @skip} and {@code @include} are not visited by {@link QueryTraverser},
+     * so the directives are looked for in the whole document.
+     */
+    static boolean hasConditionalVariables(Document document) {
+        AtomicBoolean found = new AtomicBoolean();
+        new NodeTraverser().preOrder(new NodeVisitorStub() {
+            @Override
+            public TraversalControl visitDirective(Directive node, TraverserContext<Node> context) {
+                if (("skip".equals(node.getName()) || "include".equals(node.getName()))
+                        && hasVariables(node.getArguments())) {
+                    found.set(true);
+                    return TraversalControl.QUIT;
+                }
+                return TraversalControl.CONTINUE;
+            }
+        }, document);
+        return found.get();
+    }
+
+    static boolean hasVariables(List<Argument> arguments) {
+        for (Argument argument : arguments) {
+            if (argument.getValue() instanceof VariableReference) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", QueryCost.class.getSimpleName() + "[", "]")
+                .add("cost=" + cost)
+                .add("variableIndependent=" + variableIndependent)
+                .toString();
+    }
+
+
+    /**
+     * Sums the complexity of the fields up to their parents, in the same way as
+     * {@link graphql.analysis.MaxQueryComplexityInstrumentation} does.
+     */
+    private static class CostVisitor extends QueryVisitorStub {
+
+        private final FieldComplexityCalculator calculator;
+
+        private final Map<QueryVisitorFieldEnvironment, Integer> complexityByParent = new HashMap<>();
+
+        private boolean variableDependent;
+
+        CostVisitor(FieldComplexityCalculator calculator) {
+            this.calculator = calculator;
+        }
+
+        @Override
+        public void visitField(QueryVisitorFieldEnvironment environment) {
+            if (environment.isTypeNameIntrospectionField()) {
+                return;
+            }
+
+            variableDependent |= hasVariables(costArguments(environment));
+
+            int complexity = calculator.calculate(fieldEnvironment(environment), complexityOf(environment));
+
+            complexityByParent.merge(environment.getParentEnvironment(), complexity
+                    , (first, second) -> (int) Math.min(Integer.MAX_VALUE, (long) first + second));
+        }
+
+        int complexityOf(QueryVisitorFieldEnvironment environment) {
+            return complexityByParent.getOrDefault(environment, 0);
+        }
+
+        private static FieldComplexityEnvironment fieldEnvironment(QueryVisitorFieldEnvironment environment) {
+            if (null == environment) {
+                return null;
+            }
+            return new FieldComplexityEnvironment(environment.getField()
+                    , environment.getFieldDefinition()
+                    , environment.getFieldsContainer()
+                    , environment.getArguments()
+                    , fieldEnvironment(environment.getParentEnvironment()));
+        }
+
+        /**
+         * Only the multipliers affect the cost of {@link CostFieldComplexityCalculator},
+         * any argument might affect the cost of another calculator.
+         */
+        private List<Argument> costArguments(QueryVisitorFieldEnvironment environment) {
+            List<Argument> arguments = environment.getField().getArguments();
+            if (!(calculator instanceof CostFieldComplexityCalculator) || arguments.isEmpty()) {
+                return arguments;
+            }
+
+            List<String> multipliers = CostFieldComplexityCalculator.multipliers(environment.getFieldDefinition());
+            return arguments.stream()
+                    .filter(argument -> multipliers.contains(argument.getName()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.language.Document;
+import graphql.schema.GraphQLSchema;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Depth of an operation, counted in the same way as {@link graphql.analysis.MaxQueryDepthInstrumentation} does.
+ * <p>
+ * The depth does not depend on the variables if none of the {@code @skip} and {@code @include} directives
+ * of the operation refer to variables.
+ */
+public final class QueryDepth {
+
+    private final int depth;
+
+    private final boolean variableIndependent;
+
+
+    public QueryDepth(int depth, boolean variableIndependent) {
+        this.depth = depth;
+        this.variableIndependent = variableIndependent;
+    }
+
+
+    public static QueryDepth calculate(GraphQLSchema schema
+            , Document document
+            , String operationName
+            , Map<String, Object> variables) {
+
+        QueryTraverser traverser = QueryTraverser.newQueryTraverser()
+                .schema(schema)
+                .document(document)
+                .operationName(operationName)
+                .variables(variables)
+                .build();
+
+        DepthVisitor visitor = new DepthVisitor();
+        traverser.visitPreOrder(visitor);
+
+        return new QueryDepth(visitor.depth, !QueryCost.hasConditionalVariables(document));
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isVariableIndependent() {
+        return variableIndependent;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", QueryDepth.class.getSimpleName() + "[", "]")
+                .add("depth=" + depth)
+                .add("variableIndependent=" + variableIndependent)
+                .toString();
+    }
+
+
+    private static class DepthVisitor extends QueryVisitorStub {
+
+        private int depth;
+
+        @Override
+        public void visitField(QueryVisitorFieldEnvironment environment) {
+            int length = 1;
+            for (QueryVisitorFieldEnvironment parent = environment.getParentEnvironment(); null != parent
+                    ; parent = parent.getParentEnvironment()) {
+                length++;
+            }
+            depth = Math.max(depth, length);
+        }
+    }
+}
@@ -5,12 +5,24 @@
 package org.babich.graphql.configuration;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.babich.graphql.PreparsedDocumentWeigher;
+import org.babich.graphql.ProjectionResponseCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.cache.Cache;
 import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
 
 @Configuration
 public class CacheConfiguration {
@@ -19,14 +31,91 @@ public class CacheConfiguration {
     @Value("${graphql.cache.preparsed-queries.size:1000}")
     private int preparsedGraphqlQueriesCacheMaximumSize;
 
+    @Value("${graphql.cache.preparsed-queries.maximum-weight:0}")
+    private long preparsedGraphqlQueriesCacheMaximumWeight;
+
+    @Value("${graphql.cache.preparsed-queries.expire-after-access:}")
+    private String preparsedGraphqlQueriesCacheExpireAfterAccess;
+
+    @Value("${graphql.cache.preparsed-queries.record-stats:true}")
+    private boolean preparsedGraphqlQueriesCacheRecordStats;
+
+    @Value("${graphql.cache.preparsed-queries.spec:}")
+    private String preparsedGraphqlQueriesCacheSpec;
+
+    @Value("${graphql.cache.persisted-queries.size:10000}")
+    private int persistedGraphqlQueriesCacheMaximumSize;
+
+    @Value("${graphql.cache.projection-responses.maximum-weight:67108864}")
+    private long projectionResponsesCacheMaximumWeight;
+
 
+    /**
+     * The cache is bounded by the entry count {@code graphql.cache.preparsed-queries.size}
+     * or by the estimated document size in bytes {@code graphql.cache.preparsed-queries.maximum-weight}.
+     * A Caffeine spec {@code graphql.cache.preparsed-queries.spec} replaces all the other properties,
+     * e.g. {@code maximumWeight=67108864,expireAfterAccess=30m,recordStats}.
+     */
     @Bean
     @ConditionalOnMissingBean(name = "preparsedGraphqlQueriesCache")
     Cache preparsedGraphqlQueriesCache() {
 
-        return new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder()
-                .maximumSize(preparsedGraphqlQueriesCacheMaximumSize)
+        return new CaffeineCache("preparsed-graphql-queries", preparsedGraphqlQueriesCacheBuilder().build(), false);
+    }
+
+    private Caffeine<Object, Object> preparsedGraphqlQueriesCacheBuilder() {
+
+        if (StringUtils.hasText(preparsedGraphqlQueriesCacheSpec)) {
+            Caffeine<Object, Object> builder = Caffeine.from(preparsedGraphqlQueriesCacheSpec);
+
+            return preparsedGraphqlQueriesCacheSpec.contains("maximumWeight")
+                    ? builder.weigher(new PreparsedDocumentWeigher()) : builder;
+        }
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+
+        if (preparsedGraphqlQueriesCacheMaximumWeight > 0) {
+            builder.maximumWeight(preparsedGraphqlQueriesCacheMaximumWeight)
+                    .weigher(new PreparsedDocumentWeigher());
+        } else {
+            builder.maximumSize(preparsedGraphqlQueriesCacheMaximumSize);
+        }
+
+        if (StringUtils.hasText(preparsedGraphqlQueriesCacheExpireAfterAccess)) {
+            builder.expireAfterAccess(DurationStyle.detectAndParse(preparsedGraphqlQueriesCacheExpireAfterAccess));
+        }
+
+        if (preparsedGraphqlQueriesCacheRecordStats) {
+            builder.recordStats();
+        }
+
+        return builder;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "persistedGraphqlQueriesCache")
+    Cache persistedGraphqlQueriesCache() {
+
+        return new CaffeineCache("persisted-graphql-queries", Caffeine.newBuilder()
+                .maximumSize(persistedGraphqlQueriesCacheMaximumSize)
                 .build(), false);
     }
 
+    /**
+     * The responses of a projection are cached for {@code graphql.cache.projection-responses.ttl.<projection name>},
+     * e.g. {@code graphql.cache.projection-responses.ttl.getAllFields=30s}, the other projections are not cached.
+     * The cache is bounded by the size of responses in bytes {@code graphql.cache.projection-responses.maximum-weight}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "graphql.cache.projection-responses.enabled", havingValue = "true")
+    ProjectionResponseCache projectionResponseCache(Environment environment) {
+
+        Map<String, Duration> timesToLive = Binder.get(environment)
+                .bind("graphql.cache.projection-responses.ttl", Bindable.mapOf(String.class, Duration.class))
+                .orElse(Collections.emptyMap());
+
+        return new ProjectionResponseCache(timesToLive, projectionResponsesCacheMaximumWeight);
+    }
+
 }
@@ -6,14 +6,33 @@ package org.babich.graphql.configuration;
 
 import graphql.analysis.MaxQueryComplexityInstrumentation;
 import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
 import graphql.execution.instrumentation.tracing.TracingInstrumentation;
+import org.babich.graphql.analysis.CachedMaxQueryComplexityInstrumentation;
+import org.babich.graphql.analysis.CachedMaxQueryDepthInstrumentation;
+import org.babich.graphql.analysis.MaxQueryCostInstrumentation;
+import org.babich.graphql.execution.DataLoaderRegistryFactory;
+import org.babich.graphql.execution.DataLoaderRegistryInstrumentation;
+import org.babich.graphql.instrumentation.CacheControlInstrumentation;
+import org.babich.graphql.instrumentation.SampledTracingInstrumentation;
+import org.babich.graphql.instrumentation.SlowQueryInstrumentation;
+import org.babich.graphql.instrumentation.TraceSink;
+import org.babich.graphql.spring.factory.BatchLoaderFactoryBean;
+import org.dataloader.BatchLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Tracing is a GraphQL extension for performance tracing.
  * Tracing works by including data in the extensions field of the GraphQL response.
@@ -28,6 +47,30 @@ public class InstrumentationConfiguration {
     @Value("${graphql.maxQueryDepth:0}")
     private Integer maxQueryDepth;
 
+    @Value("${graphql.maxQueryCost:0}")
+    private Integer maxQueryCost;
+
+    @Value("${graphql.tracing.sample-rate:0}")
+    private double tracingSampleRate;
+
+    @Value("${graphql.tracing.header:}")
+    private String tracingHeader;
+
+    @Value("${graphql.tracing.sink:ring-buffer}")
+    private String tracingSink;
+
+    @Value("${graphql.tracing.ring-buffer-size:100}")
+    private int tracingRingBufferSize;
+
+    @Value("${graphql.slow-query.threshold:}")
+    private String slowQueryThreshold;
+
+    @Value("${graphql.slow-query.max-operations:1000}")
+    private int slowQueryMaxOperations;
+
+    @Value("${graphql.cache-control.maximum-size:10000}")
+    private long cacheControlMaximumSize;
+
 
     @Bean
     @ConditionalOnMissingBean
@@ -36,18 +79,115 @@ public class InstrumentationConfiguration {
         return new TracingInstrumentation();
     }
 
+    /**
+     * Traces the fraction {@code graphql.tracing.sample-rate} of requests and the requests with
+     * the header {@code graphql.tracing.header}. The traces are kept in a ring buffer of
+     * {@code graphql.tracing.ring-buffer-size} traces, or in a {@link TraceSink} bean,
+     * or are returned in the response if {@code graphql.tracing.sink=response}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(value = "#{${graphql.tracing.sample-rate:0} > 0 or '${graphql.tracing.header:}' != ''}")
+    public SampledTracingInstrumentation sampledTracingInstrumentation(ObjectProvider<TraceSink> traceSink) {
+        return new SampledTracingInstrumentation(tracingSampleRate
+                , tracingHeader
+                , "response".equals(tracingSink) ? null : traceSink.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(value = "#{(${graphql.tracing.sample-rate:0} > 0 or '${graphql.tracing.header:}' != '')"
+            + " and '${graphql.tracing.sink:ring-buffer}' == 'ring-buffer'}")
+    public TraceSink traceSink() {
+        return new TraceSink.RingBuffer(tracingRingBufferSize);
+    }
+
+    /**
+     * Logs the queries taking longer than {@code graphql.slow-query.threshold}, e.g. {@code 500ms},
+     * the slowest operations are available by {@link SlowQueryInstrumentation#getSlowest(int)}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "graphql.slow-query.threshold")
+    public SlowQueryInstrumentation slowQueryInstrumentation() {
+        return new SlowQueryInstrumentation(DurationStyle.detectAndParse(slowQueryThreshold), slowQueryMaxOperations);
+    }
+
+    /**
+     * Results of the fields annotated by {@code @cacheControl} are cached, up to
+     * {@code graphql.cache-control.maximum-size} results, and the responses get the {@code Cache-Control} header.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "graphql.cache-control.enabled", havingValue = "true")
+    public CacheControlInstrumentation cacheControlInstrumentation() {
+        return new CacheControlInstrumentation(cacheControlMaximumSize);
+    }
+
+    /**
+     * Checks the complexity on every request, the complexity of a cached document is calculated once,
+     * see {@link org.babich.graphql.analysis.DocumentAnalysis}.
+     */
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnExpression(value = "#{${graphql.maxQueryComplexity:0} > 0}")
     public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation() {
-        return new MaxQueryComplexityInstrumentation(maxQueryComplexity);
+        return new CachedMaxQueryComplexityInstrumentation(maxQueryComplexity);
     }
 
+    /**
+     * Weights of fields are given by the {@code @cost} directive of the schema,
+     * see {@link org.babich.graphql.analysis.CostFieldComplexityCalculator}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(value = "#{${graphql.maxQueryCost:0} > 0}")
+    public MaxQueryCostInstrumentation maxQueryCostInstrumentation() {
+        return new MaxQueryCostInstrumentation(maxQueryCost);
+    }
+
+    /**
+     * Checks the depth on every request, the depth of a cached document is calculated once,
+     * see {@link org.babich.graphql.analysis.DocumentAnalysis}.
+     */
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnExpression(value = "#{${graphql.maxQueryDepth:0} > 0}")
     public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation() {
-        return new MaxQueryDepthInstrumentation(maxQueryDepth);
+        return new CachedMaxQueryDepthInstrumentation(maxQueryDepth);
+    }
+
+    /**
+     * Every {@link BatchLoader} and {@link MappedBatchLoader} bean is registered under its bean name
+     * in the registry that is built for each request. A bean referenced by a {@code batch-loader} element
+     * is registered under the name of the element only.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public DataLoaderRegistryFactory dataLoaderRegistryFactory(Optional<Map<String, BatchLoader<?, ?>>> batchLoaders
+            , Optional<Map<String, MappedBatchLoader<?, ?>>> mappedBatchLoaders
+            , Optional<Map<String, BatchLoaderFactoryBean>> batchLoaderFactories) {
+
+        Map<String, BatchLoaderFactoryBean> factories = batchLoaderFactories.orElse(Collections.emptyMap());
+
+        return new DataLoaderRegistryFactory(
+                batchLoaders.map(loaders -> BatchLoaderFactoryBean.withoutReferencedLoaders(loaders, factories))
+                        .orElse(null)
+                , mappedBatchLoaders.map(loaders -> BatchLoaderFactoryBean.withoutReferencedLoaders(loaders, factories))
+                        .orElse(null));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DataLoaderRegistryInstrumentation dataLoaderRegistryInstrumentation(
+            DataLoaderRegistryFactory dataLoaderRegistryFactory) {
+        return new DataLoaderRegistryInstrumentation(dataLoaderRegistryFactory);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DataLoaderDispatcherInstrumentation dataLoaderDispatcherInstrumentation() {
+        return new DataLoaderDispatcherInstrumentation();
     }
 
 }
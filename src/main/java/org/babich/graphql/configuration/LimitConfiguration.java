@@ -0,0 +1,99 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.configuration;
+
+import org.babich.graphql.analysis.CostFieldComplexityCalculator;
+import org.babich.graphql.limit.ClientKeyStrategy;
+import org.babich.graphql.limit.ConcurrencyLimitFilter;
+import org.babich.graphql.limit.RateLimitInstrumentation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Limits of the load that clients put on the data fetchers.
+ * The rate of each client is limited in query cost units by {@code graphql.rate-limit.cost-per-second},
+ * the number of requests executed at the same time is limited by {@code graphql.concurrency-limit.max-concurrent}.
+ */
+@Configuration
+public class LimitConfiguration {
+
+    @Value("${graphql.rate-limit.cost-per-second:0}")
+    private double rateLimitCostPerSecond;
+
+    @Value("${graphql.rate-limit.burst:0}")
+    private long rateLimitBurst;
+
+    @Value("${graphql.rate-limit.client-header:}")
+    private String rateLimitClientHeader;
+
+    @Value("${graphql.rate-limit.trusted-hops:1}")
+    private int rateLimitTrustedHops;
+
+    @Value("${graphql.rate-limit.max-clients:10000}")
+    private int rateLimitMaxClients;
+
+    @Value("${graphql.maxQueryCost:0}")
+    private int maxQueryCost;
+
+    @Value("${graphql.concurrency-limit.max-concurrent:0}")
+    private int maxConcurrent;
+
+    @Value("${graphql.concurrency-limit.max-queued:100}")
+    private int maxQueued;
+
+    @Value("${graphql.concurrency-limit.max-wait:1s}")
+    private String maxWait;
+
+    @Value("${graphql.concurrency-limit.url-patterns:/*}")
+    private String[] urlPatterns;
+
+
+    /**
+     * The client is identified by the header {@code graphql.rate-limit.client-header} or by the remote address,
+     * a client may spend up to {@code graphql.rate-limit.burst} cost units at once, by default the cost per second
+     * or {@code graphql.maxQueryCost} if it is greater. A burst less than {@code graphql.maxQueryCost} would reject
+     * the allowed queries, so it fails the startup.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression(value = "#{${graphql.rate-limit.cost-per-second:0} > 0}")
+    public RateLimitInstrumentation rateLimitInstrumentation(ObjectProvider<ClientKeyStrategy> clientKeyStrategy) {
+        long burst = rateLimitBurst > 0 ? rateLimitBurst
+                : Math.max(maxQueryCost, Math.max(1, (long) Math.ceil(rateLimitCostPerSecond)));
+        if (burst < maxQueryCost) {
+            throw new IllegalArgumentException("graphql.rate-limit.burst " + burst
+                    + " is less than graphql.maxQueryCost " + maxQueryCost);
+        }
+
+        return new RateLimitInstrumentation(rateLimitCostPerSecond
+                , burst
+                , clientKeyStrategy.getIfAvailable(() -> rateLimitClientHeader.isEmpty()
+                        ? ClientKeyStrategy.remoteAddress : new ClientKeyStrategy.Header(rateLimitClientHeader, rateLimitTrustedHops))
+                , rateLimitMaxClients
+                , new CostFieldComplexityCalculator());
+    }
+
+    /**
+     * Requests of {@code graphql.concurrency-limit.url-patterns} over the limit wait in a queue of
+     * {@code graphql.concurrency-limit.max-queued} requests for up to {@code graphql.concurrency-limit.max-wait}.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "concurrencyLimitFilter")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnExpression(value = "#{${graphql.concurrency-limit.max-concurrent:0} > 0}")
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter() {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(maxConcurrent, maxQueued, DurationStyle.detectAndParse(maxWait)));
+        registration.addUrlPatterns(urlPatterns);
+        return registration;
+    }
+}
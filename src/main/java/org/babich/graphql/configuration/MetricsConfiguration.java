@@ -0,0 +1,88 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.babich.graphql.instrumentation.MetricsInstrumentation;
+import org.babich.graphql.instrumentation.OperationNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metrics of query execution, they are published by Spring Boot actuator when a {@link MeterRegistry} is present.
+ * See {@link MetricsInstrumentation} for the meters.
+ * Hit ratio of the preparsed query cache is published as {@code cache.gets} and the other Caffeine cache meters
+ * tagged by {@code cache=preparsed-graphql-queries}.
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(value = "graphql.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"
+        , "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"})
+public class MetricsConfiguration {
+
+    @Value("${graphql.metrics.field-sample-rate:0.1}")
+    private double fieldSampleRate;
+
+    @Value("${graphql.metrics.percentile-histogram:true}")
+    private boolean percentileHistogram;
+
+    @Value("${graphql.metrics.max-operations:100}")
+    private int maxOperations;
+
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Qualifier("documentProjectionQueries")
+    @Autowired(required = false)
+    private Map<String, String> documentProjectionQueries;
+
+
+    /**
+     * The {@code operation} tag is the projection name or one of at most {@code graphql.metrics.max-operations}
+     * operation names of open queries, the other names are tagged as {@link OperationNames#other}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MetricsInstrumentation metricsInstrumentation(MeterRegistry meterRegistry) {
+        return new MetricsInstrumentation(meterRegistry, fieldSampleRate, percentileHistogram
+                , new OperationNames.Limited(null == documentProjectionQueries ? null
+                : documentProjectionQueries.keySet(), maxOperations));
+    }
+
+    /**
+     * Statistics are recorded unless {@code graphql.cache.preparsed-queries.record-stats} is false.
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "preparsedGraphqlQueriesCacheMetrics")
+    public MeterBinder preparsedGraphqlQueriesCacheMetrics(
+            @Qualifier("preparsedGraphqlQueriesCache") Cache preparsedGraphqlQueriesCache) {
+
+        Object nativeCache = preparsedGraphqlQueriesCache.getNativeCache();
+        if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+            return registry -> {
+            };
+        }
+
+        return new CaffeineCacheMetrics((com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache
+                , preparsedGraphqlQueriesCache.getName()
+                , Collections.emptyList());
+    }
+
+}
@@ -5,7 +5,7 @@
 package org.babich.graphql.configuration;
 
 import graphql.GraphQL;
-import graphql.GraphQLContext;
+import graphql.execution.ExecutionStrategy;
 import graphql.execution.instrumentation.ChainedInstrumentation;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
@@ -16,24 +16,43 @@ import graphql.schema.idl.SchemaGenerator;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.TypeRuntimeWiring;
 import org.babich.graphql.GraphQLContextBuilder;
+import org.babich.graphql.GraphQLContextFactory;
 import org.babich.graphql.GraphQLQueryCache;
+import org.babich.graphql.GraphQLQueryCacheKeyStrategy;
+import org.babich.graphql.PersistedQueryStore;
+import org.babich.graphql.ProjectionDocumentProvider;
+import org.babich.graphql.ProjectionQueriesWarmUp;
+import org.babich.graphql.ProjectionResponseCache;
 import org.babich.graphql.SchemaStringProvider;
+import org.babich.graphql.execution.DataFetcherExecutors;
+import org.babich.graphql.execution.ExecutorDataFetcherExecutionStrategy;
 import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.babich.graphql.schema.ReloadableGraphQL;
+import org.babich.graphql.schema.SchemaBoundDocumentProvider;
+import org.babich.graphql.schema.SchemaDirectiveExpander;
+import org.babich.graphql.schema.SchemaSnapshot;
 import org.babich.graphql.schema.SchemaStringProviderByFileMatcher;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.cache.Cache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 
 /**
@@ -48,6 +67,27 @@ public class ServletConfiguration {
     @Value("${graphql.schemaLocationPattern: **/*.graphqls}")
     private String schemaLocationPattern;
 
+    @Value("${graphql.schema-snapshot.location:}")
+    private String schemaSnapshotLocation;
+
+    @Value("${graphql.schema-reload.enabled:false}")
+    private boolean schemaReloadEnabled;
+
+    @Value("${graphql.schema-reload.quiet-period:500ms}")
+    private String schemaReloadQuietPeriod;
+
+    @Value("${graphql.cache.preparsed-queries.single-flight:true}")
+    private boolean preparsedQueriesSingleFlight;
+
+    @Value("${graphql.data-fetcher-executor.type:}")
+    private String dataFetcherExecutorType;
+
+    @Value("${graphql.data-fetcher-executor.max-threads:64}")
+    private int dataFetcherExecutorMaxThreads;
+
+    @Value("${graphql.data-fetcher-executor.queue-size:1000}")
+    private int dataFetcherExecutorQueueSize;
+
 
     @Autowired(required = false)
     private List<Instrumentation> instrumentations;
@@ -61,12 +101,20 @@ public class ServletConfiguration {
     @Autowired(required = false)
     private PreparsedDocumentProvider preparsedDocumentProvider;
 
+    @Autowired(required = false)
+    private List<SchemaDirectiveExpander> schemaDirectiveExpanders;
+
     @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
     @Qualifier("documentProjectionQueries")
     @Autowired(required = false)
     private Map<String, String> documentProjectionQueries;
 
 
+    /**
+     * @deprecated the builder is mutable, a prototype injected into a singleton is shared by the request threads,
+     * use the {@link GraphQLContextFactory} bean, a stateless factory that creates a new context per request
+     */
+    @Deprecated
     @Bean
     @Scope(value = BeanDefinition.SCOPE_PROTOTYPE)
     @ConditionalOnMissingBean
@@ -74,6 +122,18 @@ public class ServletConfiguration {
         return new GraphQLContextBuilder.ServletGraphQLContextBuilder();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    GraphQLContextFactory graphQLContextFactory() {
+        return new GraphQLContextFactory.ServletGraphQLContextFactory();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    GraphQLQueryCacheKeyStrategy graphQLQueryCacheKeyStrategy() {
+        return new GraphQLQueryCacheKeyStrategy.NormalizedQueryHash();
+    }
+
     @Bean
     @ConditionalOnMissingBean
     SchemaStringProvider schemaStringProvider() {
@@ -83,24 +143,58 @@ public class ServletConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public GraphQLSchema graphQLSchema(SchemaStringProvider schemaStringProvider) throws IOException {
-        return loadSchema(schemaStringProvider);
+        return buildSchema(schemaStringProvider.schemaSources(), true);
     }
 
     @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
     @Bean
     @ConditionalOnMissingBean
-    PreparsedDocumentProvider preparsedDocumentProvider(Cache preparsedGraphqlQueriesCache) {
-        return buildPreparsedDocumentProvider(preparsedGraphqlQueriesCache);
+    PreparsedDocumentProvider preparsedDocumentProvider(@Qualifier("preparsedGraphqlQueriesCache") Cache preparsedGraphqlQueriesCache
+            , GraphQLQueryCacheKeyStrategy graphQLQueryCacheKeyStrategy) {
+        return buildPreparsedDocumentProvider(preparsedGraphqlQueriesCache, graphQLQueryCacheKeyStrategy);
+    }
+
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "graphql.persisted-queries.enabled", havingValue = "true", matchIfMissing = true)
+    PersistedQueryStore persistedQueryStore(@Qualifier("persistedGraphqlQueriesCache") Cache persistedGraphqlQueriesCache) {
+        return new PersistedQueryStore.CacheStore(persistedGraphqlQueriesCache);
+    }
+
+    /**
+     * Opt-in executor of blocking data fetchers, {@code graphql.data-fetcher-executor.type} is
+     * {@code virtual} (bounded on JDKs without virtual threads) or {@code bounded}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "graphQLDataFetcherExecutor")
+    @ConditionalOnProperty(value = "graphql.data-fetcher-executor.type")
+    ExecutorService graphQLDataFetcherExecutor() {
+        return DataFetcherExecutors.create(dataFetcherExecutorType
+                , dataFetcherExecutorMaxThreads
+                , dataFetcherExecutorQueueSize);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "queryExecutionStrategy")
+    @ConditionalOnProperty(value = "graphql.data-fetcher-executor.type")
+    ExecutionStrategy queryExecutionStrategy(@Qualifier("graphQLDataFetcherExecutor") ExecutorService executor) {
+        return new ExecutorDataFetcherExecutionStrategy(executor);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public GraphQL graphQL(GraphQLSchema graphQLSchema) {
+    public GraphQL graphQL(GraphQLSchema graphQLSchema
+            , @Qualifier("queryExecutionStrategy") ObjectProvider<ExecutionStrategy> queryExecutionStrategy) {
 
         GraphQL.Builder builder = GraphQL.newGraphQL(graphQLSchema);
 
+        queryExecutionStrategy.ifAvailable(builder::queryExecutionStrategy);
+
         if (null != preparsedDocumentProvider) {
-            builder.preparsedDocumentProvider(preparsedDocumentProvider);
+            builder.preparsedDocumentProvider(schemaReloadEnabled
+                    ? new SchemaBoundDocumentProvider(preparsedDocumentProvider, graphQLSchema)
+                    : preparsedDocumentProvider);
         }
 
         if (null != instrumentations) {
@@ -110,10 +204,62 @@ public class ServletConfiguration {
         return builder.build();
     }
 
-    private GraphQLSchema loadSchema(SchemaStringProvider schemaStringProvider) throws IOException {
+    /**
+     * Opt-in reload of the schema when the schema files are changed, {@link ReloadableGraphQL#get()}
+     * is the instance of the current schema.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "graphql.schema-reload.enabled", havingValue = "true")
+    ReloadableGraphQL reloadableGraphQL(GraphQL graphQL
+            , SchemaStringProvider schemaStringProvider
+            , ObjectProvider<ProjectionResponseCache> projectionResponseCache) throws IOException {
+
+        ReloadableGraphQL reloadableGraphQL = new ReloadableGraphQL(graphQL
+                , schemaStringProvider
+                , sources -> buildSchema(sources, false)
+                , DurationStyle.detectAndParse(schemaReloadQuietPeriod));
+
+        projectionResponseCache.ifAvailable(cache -> reloadableGraphQL.addListener(reloaded -> cache.invalidateAll()));
+
+        reloadableGraphQL.start();
+        return reloadableGraphQL;
+    }
 
-        TypeDefinitionRegistry registry = new DirectiveExtensionSchemaParser()
-                .parse(schemaStringProvider.schemaStrings());
+    /**
+     * The projections are put to the provider of the {@link GraphQL}, with the schema reload it binds them
+     * to the schema, so the requests do not validate them again.
+     */
+    /**
+     * The instance of the current schema for the controllers, the {@code GraphQL} bean keeps the schema of the start.
+     * With the schema reload it is the {@link ReloadableGraphQL} bean, so the controllers should execute the queries
+     * by {@code Supplier<GraphQL>.get()} rather than by the {@code GraphQL} bean.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "graphql.schema-reload.enabled", havingValue = "false", matchIfMissing = true)
+    Supplier<GraphQL> currentGraphQL(GraphQL graphQL) {
+        return () -> graphQL;
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "graphql.projection-queries.warm-up", havingValue = "true", matchIfMissing = true)
+    ProjectionQueriesWarmUp projectionQueriesWarmUp(GraphQL graphQL) {
+        return new ProjectionQueriesWarmUp(graphQL, documentProjectionQueries);
+    }
+
+    /**
+     * @param snapshot use the schema snapshot, the schemas of a reload are parsed, they would fill the directory
+     *                 with the snapshots of every edit
+     */
+    private GraphQLSchema buildSchema(Map<String, String> sources, boolean snapshot) {
+
+        DirectiveExtensionSchemaParser parser = new DirectiveExtensionSchemaParser(null == schemaDirectiveExpanders
+                ? Collections.emptyList() : schemaDirectiveExpanders);
+
+        TypeDefinitionRegistry registry = !snapshot || schemaSnapshotLocation.trim().isEmpty()
+                ? parser.parse(sources)
+                : new SchemaSnapshot(Paths.get(schemaSnapshotLocation.trim()), parser.getExpandersVersion())
+                .load(sources, parser::parse);
 
         RuntimeWiring runtimeWiring = buildRuntimeWiring();
 
@@ -135,27 +281,15 @@ public class ServletConfiguration {
         return builder.build();
     }
 
-    private PreparsedDocumentProvider buildPreparsedDocumentProvider(Cache cache) {
+    private PreparsedDocumentProvider buildPreparsedDocumentProvider(Cache cache
+            , GraphQLQueryCacheKeyStrategy keyStrategy) {
 
-        return new GraphQLQueryCache(cache, executionInput -> {
+        GraphQLQueryCache openQueries = new GraphQLQueryCache(cache
+                , Function.identity()
+                , preparsedQueriesSingleFlight
+                , keyStrategy);
 
-            if (isNotProjection((GraphQLContext) executionInput.getContext())) {
-                return executionInput;
-            }
-
-            String query;
-            if (null == (query = documentProjectionQueries.get(executionInput.getQuery()))) {
-                throw new IllegalArgumentException("Query name {" + executionInput.getQuery() + "} is not found.");
-            }
-
-            return executionInput.transform(builder -> builder.query(query));
-        });
-    }
-
-    static boolean isNotProjection(GraphQLContext context) {
-        if (null == context) {
-            return true;
-        }
-        return !context.getOrDefault(GraphQLContextBuilder.isProjection, false);
+        return new ProjectionDocumentProvider(name ->
+                null == documentProjectionQueries ? null : documentProjectionQueries.get(name), openQueries);
     }
 }
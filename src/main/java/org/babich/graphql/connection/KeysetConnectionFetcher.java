@@ -0,0 +1,149 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.connection;
+
+import graphql.GraphqlErrorException;
+import graphql.relay.Connection;
+import graphql.relay.ConnectionCursor;
+import graphql.relay.DefaultConnection;
+import graphql.relay.DefaultConnectionCursor;
+import graphql.relay.DefaultEdge;
+import graphql.relay.DefaultPageInfo;
+import graphql.relay.Edge;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Fetcher of a field expanded by {@link org.babich.graphql.schema.SchemaDirectiveExpander.Connection}, the
+ * arguments {@code first}, {@code after}, {@code last} and {@code before} of the field are pushed down to the
+ * {@link PageSource} as a keyset {@link PageRequest}.
+ * <pre>
+ *     getObjects(first: Int, after: String, last: Int, before: String): ObjectConnection @connection(for: "Object")
+ * </pre>
+ * <p>Unlike {@link graphql.relay.SimpleListConnection}, neither the whole list nor the nodes before the cursor
+ * are fetched: a page of {@code n} nodes is a request of {@code n + 1} nodes after (or before) the key of the
+ * cursor, the extra node only tells that the next (or the previous) page exists. A deep page costs as much as
+ * the first one, and the cursors stay valid when nodes are inserted or deleted before them.</p>
+ * <p>If the client pages forward, {@code hasPreviousPage} is {@code true} when there is an {@code after} cursor,
+ * and vice versa for {@code hasNextPage} when paging backward, as the Relay specification allows. If neither
+ * {@code first} nor {@code last} is given, or either of them is greater than the maximum page size, the page
+ * has the maximum size.</p>
+ *
+ * @param <T> type of the node
+ * @param <K> type of the key
+ */
+public class KeysetConnectionFetcher<T, K> implements DataFetcher<Connection<T>> {
+
+    public static final int defaultMaxPageSize = 100;
+
+    private final KeysetCursor<K> cursor;
+
+    private final PageSource<T, K> pageSource;
+
+    private final int maxPageSize;
+
+
+    public KeysetConnectionFetcher(KeysetCursor<K> cursor, PageSource<T, K> pageSource) {
+        this(cursor, pageSource, defaultMaxPageSize);
+    }
+
+    public KeysetConnectionFetcher(KeysetCursor<K> cursor, PageSource<T, K> pageSource, int maxPageSize) {
+        this.cursor = cursor;
+        this.pageSource = pageSource;
+        this.maxPageSize = maxPageSize;
+    }
+
+
+    @Override
+    public Connection<T> get(DataFetchingEnvironment environment) {
+        Integer first = pageSize(environment, "first");
+        Integer last = pageSize(environment, "last");
+        K after = key(environment, "after");
+        K before = key(environment, "before");
+
+        boolean backward = null == first && null != last;
+        int size = Math.min(maxPageSize, backward ? last : null != first ? first : maxPageSize);
+
+        List<T> nodes = pageSource.getPage(new PageRequest<>(after, before, size + 1, backward), environment);
+
+        boolean hasMore = nodes.size() > size;
+        List<T> page = hasMore ? nodes.subList(0, size) : nodes;
+
+        boolean hasPreviousPage;
+        boolean hasNextPage;
+        if (backward) {
+            page = new ArrayList<>(page);
+            Collections.reverse(page);
+            hasPreviousPage = hasMore || null != after;
+            hasNextPage = null != before;
+        } else {
+            hasPreviousPage = null != after;
+            hasNextPage = hasMore || null != before;
+        }
+
+        // both first and last, the last nodes of the first ones
+        if (!backward && null != last && last < page.size()) {
+            page = page.subList(page.size() - last, page.size());
+            hasPreviousPage = true;
+        }
+
+        return connection(page, hasPreviousPage, hasNextPage);
+    }
+
+    public KeysetCursor<K> getCursor() {
+        return cursor;
+    }
+
+    public PageSource<T, K> getPageSource() {
+        return pageSource;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+
+    private Connection<T> connection(List<T> page, boolean hasPreviousPage, boolean hasNextPage) {
+        List<Edge<T>> edges = new ArrayList<>(page.size());
+        for (T node : page) {
+            edges.add(new DefaultEdge<>(node, new DefaultConnectionCursor(cursor.encode(pageSource.getKey(node)))));
+        }
+
+        ConnectionCursor startCursor = edges.isEmpty() ? null : edges.get(0).getCursor();
+        ConnectionCursor endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor();
+
+        return new DefaultConnection<>(edges, new DefaultPageInfo(startCursor, endCursor, hasPreviousPage, hasNextPage));
+    }
+
+    private K key(DataFetchingEnvironment environment, String argument) {
+        String value = environment.getArgument(argument);
+        return null == value ? null : cursor.decode(value);
+    }
+
+    private static Integer pageSize(DataFetchingEnvironment environment, String argument) {
+        Integer value = environment.getArgument(argument);
+        if (null != value && value < 0) {
+            throw GraphqlErrorException.newErrorException()
+                    .message("The page size must not be negative: '" + argument + "'=" + value)
+                    .extensions(Collections.singletonMap("code", "BAD_USER_INPUT"))
+                    .build();
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", KeysetConnectionFetcher.class.getSimpleName() + "[", "]")
+                .add("cursor=" + cursor)
+                .add("pageSource=" + pageSource)
+                .add("maxPageSize=" + maxPageSize)
+                .toString();
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.connection;
+
+import graphql.GraphqlErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor of a {@link KeysetConnectionFetcher} that carries the key of a node instead of its offset.
+ * <p>The cursor is the url-safe Base64 of {@code {type}:{key}}, the type names the ordering of the connection,
+ * e.g. the node type, so a cursor of another connection or a forged cursor is rejected with a
+ * {@code BAD_USER_INPUT} error rather than paging from an arbitrary key. A composite key, e.g. a date and an id,
+ * is formatted and parsed by the functions of {@link #of(String, Function, Function)}.</p>
+ *
+ * @param <K> type of the key
+ */
+public interface KeysetCursor<K> {
+
+    /**
+     * @return name of the ordering the cursors belong to
+     */
+    String getType();
+
+    String encode(K key);
+
+    /**
+     * @throws GraphqlErrorException if the cursor is not a cursor of the type
+     */
+    K decode(String cursor);
+
+
+    static KeysetCursor<String> ofString(String type) {
+        return of(type, Function.identity(), Function.identity());
+    }
+
+    static KeysetCursor<Long> ofLong(String type) {
+        return of(type, String::valueOf, Long::valueOf);
+    }
+
+    /**
+     * @param format key as a string, {@code parse} must restore the same key from it
+     * @param parse  key of the formatted string, a runtime exception means an invalid cursor
+     */
+    static <K> KeysetCursor<K> of(String type, Function<K, String> format, Function<String, K> parse) {
+        return new Typed<>(type, format, parse);
+    }
+
+
+    /**
+     * Cursor of the formatted key prefixed by the type.
+     */
+    class Typed<K> implements KeysetCursor<K> {
+
+        private final String type;
+
+        private final String prefix;
+
+        private final Function<K, String> format;
+
+        private final Function<String, K> parse;
+
+        public Typed(String type, Function<K, String> format, Function<String, K> parse) {
+            this.type = type;
+            this.prefix = type + ':';
+            this.format = format;
+            this.parse = parse;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public String encode(K key) {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((prefix + format.apply(key)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public K decode(String cursor) {
+            String value;
+            try {
+                value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw invalidCursor(cursor, e);
+            }
+
+            if (!value.startsWith(prefix)) {
+                throw invalidCursor(cursor, null);
+            }
+
+            try {
+                return parse.apply(value.substring(prefix.length()));
+            } catch (RuntimeException e) {
+                throw invalidCursor(cursor, e);
+            }
+        }
+
+        private GraphqlErrorException invalidCursor(String cursor, Throwable cause) {
+            return GraphqlErrorException.newErrorException()
+                    .message("Invalid cursor '" + cursor + "' of " + type)
+                    .extensions(Collections.singletonMap("code", "BAD_USER_INPUT"))
+                    .cause(cause)
+                    .build();
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Typed.class.getSimpleName() + "[", "]")
+                    .add("type='" + type + "'")
+                    .toString();
+        }
+    }
+}
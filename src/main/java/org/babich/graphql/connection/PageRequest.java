@@ -0,0 +1,69 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.connection;
+
+import java.util.StringJoiner;
+
+/**
+ * Page of a keyset connection requested from a {@link PageSource}.
+ * <p>The nodes are those strictly between the {@code after} and the {@code before} keys, either of them is
+ * {@code null} if the range is open. A forward request wants the nodes nearest to {@code after} in the key order,
+ * a backward request wants the nodes nearest to {@code before} in the reversed key order, i.e.
+ * {@code ORDER BY key DESC}. The limit is the page size plus one, the extra node tells that there is one more
+ * page, so the source never has to count the nodes.</p>
+ *
+ * @param <K> type of the key
+ */
+public final class PageRequest<K> {
+
+    private final K after;
+
+    private final K before;
+
+    private final int limit;
+
+    private final boolean backward;
+
+
+    public PageRequest(K after, K before, int limit, boolean backward) {
+        this.after = after;
+        this.before = before;
+        this.limit = limit;
+        this.backward = backward;
+    }
+
+
+    public K getAfter() {
+        return after;
+    }
+
+    public K getBefore() {
+        return before;
+    }
+
+    /**
+     * @return maximum number of the nodes, the page size plus one
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return {@code true} if the nodes are expected in the reversed key order
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PageRequest.class.getSimpleName() + "[", "]")
+                .add("after=" + after)
+                .add("before=" + before)
+                .add("limit=" + limit)
+                .add("backward=" + backward)
+                .toString();
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.connection;
+
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.List;
+import java.util.NavigableMap;
+
+/**
+ * Nodes of a keyset connection ordered by a unique key, e.g. a query like
+ * <pre>
+ *     SELECT * FROM node WHERE key &gt; :after AND key &lt; :before ORDER BY key LIMIT :limit
+ * </pre>
+ * or a {@link #range} of a {@link NavigableMap}. The filters of the field are the arguments of the environment.
+ *
+ * @param <T> type of the node
+ * @param <K> type of the key
+ */
+public interface PageSource<T, K> {
+
+    K getKey(T node);
+
+    /**
+     * @return at most {@link PageRequest#getLimit()} nodes in the order of the request
+     */
+    List<T> getPage(PageRequest<K> request, DataFetchingEnvironment environment);
+
+
+    /**
+     * View of the nodes of the request in its order. The nodes must be taken by the iterator of the view,
+     * the spliterator of a stream counts the whole range first.
+     */
+    static <K, T> NavigableMap<K, T> range(NavigableMap<K, T> nodes, PageRequest<K> request) {
+        NavigableMap<K, T> range = nodes;
+        if (null != request.getAfter()) {
+            range = range.tailMap(request.getAfter(), false);
+        }
+        if (null != request.getBefore()) {
+            range = range.headMap(request.getBefore(), false);
+        }
+        return request.isBackward() ? range.descendingMap() : range;
+    }
+}
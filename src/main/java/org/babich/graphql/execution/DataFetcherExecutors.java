@@ -0,0 +1,98 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for {@link ExecutorDataFetcherExecutionStrategy}.
+ */
+public final class DataFetcherExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataFetcherExecutors.class);
+
+    public static final String virtual = "virtual";
+    public static final String bounded = "bounded";
+
+
+    private DataFetcherExecutors() {
+    }
+
+    /**
+     * @param type        {@link #virtual} or {@link #bounded}
+     * @param maxThreads  threads of the bounded executor
+     * @param queueSize   queue of the bounded executor
+     * @return virtual-thread-per-task executor if requested and supported by the JDK, a bounded executor otherwise
+     */
+    public static ExecutorService create(String type, int maxThreads, int queueSize) {
+
+        if (virtual.equalsIgnoreCase(type)) {
+            Optional<ExecutorService> executor = virtualThreadPerTask();
+            if (executor.isPresent()) {
+                return executor.get();
+            }
+
+            logger.warn("Virtual threads are not supported by JDK {}, the bounded data fetcher executor is used."
+                    , System.getProperty("java.version"));
+
+        } else if (!bounded.equalsIgnoreCase(type)) {
+            throw new IllegalArgumentException("Unsupported data fetcher executor {" + type + "}, expected "
+                    + virtual + " or " + bounded + ".");
+        }
+
+        return bounded(maxThreads, queueSize);
+    }
+
+    /**
+     * @return {@code Executors.newVirtualThreadPerTaskExecutor()} on JDK 21 and later
+     */
+    public static Optional<ExecutorService> virtualThreadPerTask() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Bounded pool of daemon threads, when the pool and the queue are full the fetcher is run
+     * by the calling thread, so the execution slows down instead of failing.
+     */
+    public static ExecutorService bounded(int maxThreads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads
+                , maxThreads
+                , 60, TimeUnit.SECONDS
+                , new LinkedBlockingQueue<>(queueSize)
+                , new DataFetcherThreadFactory()
+                , new ThreadPoolExecutor.CallerRunsPolicy());
+
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    static class DataFetcherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "graphql-fetcher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
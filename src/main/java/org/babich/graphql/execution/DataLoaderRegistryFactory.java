@@ -0,0 +1,77 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.MappedBatchLoader;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Builds a new {@link DataLoaderRegistry} for every request.
+ * <p>
+ * A {@link org.dataloader.DataLoader} caches the values it has loaded, so a registry must not be shared
+ * between requests, otherwise one client would see values loaded for another one.
+ * The batch loaders themselves are stateless and are shared, each of them is registered under its name,
+ * which is the bean name when the loaders come from the application context.
+ */
+public class DataLoaderRegistryFactory {
+
+    private final Map<String, BatchLoader<?, ?>> batchLoaders;
+    private final Map<String, MappedBatchLoader<?, ?>> mappedBatchLoaders;
+    private final DataLoaderOptions options;
+
+
+    public DataLoaderRegistryFactory(Map<String, BatchLoader<?, ?>> batchLoaders
+            , Map<String, MappedBatchLoader<?, ?>> mappedBatchLoaders) {
+        this(batchLoaders, mappedBatchLoaders, DataLoaderOptions.newOptions());
+    }
+
+    public DataLoaderRegistryFactory(Map<String, BatchLoader<?, ?>> batchLoaders
+            , Map<String, MappedBatchLoader<?, ?>> mappedBatchLoaders
+            , DataLoaderOptions options) {
+        this.batchLoaders = null == batchLoaders ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(batchLoaders));
+        this.mappedBatchLoaders = null == mappedBatchLoaders ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(mappedBatchLoaders));
+        this.options = options;
+    }
+
+
+    public DataLoaderRegistry newRegistry() {
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        batchLoaders.forEach((name, loader) ->
+                registry.register(name, DataLoaderFactory.newDataLoader(loader, options)));
+        mappedBatchLoaders.forEach((name, loader) ->
+                registry.register(name, DataLoaderFactory.newMappedDataLoader(loader, options)));
+        return registry;
+    }
+
+    public boolean isEmpty() {
+        return batchLoaders.isEmpty() && mappedBatchLoaders.isEmpty();
+    }
+
+    public Map<String, BatchLoader<?, ?>> getBatchLoaders() {
+        return batchLoaders;
+    }
+
+    public Map<String, MappedBatchLoader<?, ?>> getMappedBatchLoaders() {
+        return mappedBatchLoaders;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", DataLoaderRegistryFactory.class.getSimpleName() + "[", "]")
+                .add("batchLoaders=" + batchLoaders.keySet())
+                .add("mappedBatchLoaders=" + mappedBatchLoaders.keySet())
+                .toString();
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import graphql.ExecutionInput;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+
+/**
+ * Attaches a per-request {@link org.dataloader.DataLoaderRegistry} to the {@link ExecutionInput}.
+ * <p>
+ * The registry is dispatched by {@link graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation},
+ * so the loads issued by fetchers of one level are sent to the batch loader as one batch instead of one call per object.
+ * An input that already carries its own registry is left untouched.
+ */
+public class DataLoaderRegistryInstrumentation extends SimpleInstrumentation {
+
+    private final DataLoaderRegistryFactory registryFactory;
+
+
+    public DataLoaderRegistryInstrumentation(DataLoaderRegistryFactory registryFactory) {
+        this.registryFactory = registryFactory;
+    }
+
+
+    @Override
+    public ExecutionInput instrumentExecutionInput(ExecutionInput executionInput
+            , InstrumentationExecutionParameters parameters) {
+
+        if (registryFactory.isEmpty()
+                || DataLoaderDispatcherInstrumentationState.EMPTY_DATALOADER_REGISTRY
+                != executionInput.getDataLoaderRegistry()) {
+            return executionInput;
+        }
+
+        return executionInput.transform(builder -> builder.dataLoaderRegistry(registryFactory.newRegistry()));
+    }
+
+    public DataLoaderRegistryFactory getRegistryFactory() {
+        return registryFactory;
+    }
+}
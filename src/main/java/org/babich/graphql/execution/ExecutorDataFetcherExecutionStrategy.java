@@ -0,0 +1,75 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import graphql.TrivialDataFetcher;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.execution.DataFetcherExceptionHandler;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionStrategyParameters;
+import graphql.execution.FetchedValue;
+import graphql.execution.SimpleDataFetcherExceptionHandler;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Execution strategy that runs every non-trivial {@link DataFetcher} on the executor,
+ * so blocking fetchers of sibling fields are resolved in parallel instead of one after another
+ * on the request thread.
+ * <p>
+ * Trivial fetchers, e.g. {@link graphql.schema.PropertyDataFetcher}, are run in place
+ * because switching threads costs more than reading a property.
+ * The executor is expected to be a virtual-thread-per-task one or a bounded pool, see {@link DataFetcherExecutors}.
+ */
+public class ExecutorDataFetcherExecutionStrategy extends AsyncExecutionStrategy {
+
+    private final Executor executor;
+
+
+    public ExecutorDataFetcherExecutionStrategy(Executor executor) {
+        this(executor, new SimpleDataFetcherExceptionHandler());
+    }
+
+    public ExecutorDataFetcherExecutionStrategy(Executor executor, DataFetcherExceptionHandler exceptionHandler) {
+        super(exceptionHandler);
+        this.executor = executor;
+    }
+
+
+    @Override
+    protected CompletableFuture<FetchedValue> fetchField(ExecutionContext executionContext
+            , ExecutionStrategyParameters parameters) {
+
+        if (isTrivial(executionContext, parameters)) {
+            return super.fetchField(executionContext, parameters);
+        }
+
+        return CompletableFuture.supplyAsync(() -> super.fetchField(executionContext, parameters), executor)
+                .thenCompose(Function.identity());
+    }
+
+    private boolean isTrivial(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
+
+        GraphQLType parentType = parameters.getExecutionStepInfo().getUnwrappedNonNullType();
+        if (!(parentType instanceof GraphQLFieldsContainer)) {
+            return false;
+        }
+
+        GraphQLFieldDefinition fieldDefinition = getFieldDef(executionContext
+                , parameters
+                , parameters.getField().getSingleField());
+
+        DataFetcher<?> dataFetcher = executionContext.getGraphQLSchema().getCodeRegistry()
+                .getDataFetcher((GraphQLFieldsContainer) parentType, fieldDefinition);
+
+        return dataFetcher instanceof TrivialDataFetcher;
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.cachecontrol.CacheControl;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLCompositeType;
+import graphql.schema.GraphQLDirective;
+import graphql.schema.GraphQLDirectiveContainer;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Caches the results of the fields annotated by the {@code @cacheControl} directive and
+ * computes the {@link CachePolicy} of the response.
+ * <pre>
+ *     type Query {
+ *         countries: [Country] @cacheControl(maxAge: 3600)
+ *     }
+ *
+ *     type Country @cacheControl(maxAge: 86400) {
+ *         code: ID
+ *         name: String
+ *     }
+ * </pre>
+ * The hint of a field is given by its directive or by the directive of its type. A field with the {@code PUBLIC}
+ * scope and a positive {@code maxAge} is fetched once for the parent and arguments, the result is shared by
+ * the requests until it is expired, so it must not be changed. The parent of the root fields is ignored,
+ * the parent of the other fields is identified by the given parent key, e.g. the id of the source object,
+ * and the other fields are not cached if there is no parent key.
+ * The value is fetched by the request that puts its future to the cache, out of the lock of the cache,
+ * and the concurrent requests of the field share that future.
+ * The results with errors and the fields of mutations and subscriptions are not cached.
+ * <p>
+ * The {@code maxAge} of the response is the smallest one of the hinted fields, the root fields and the fields of
+ * object types, the last two are {@code 0} if they have no hint, as it is done by Apollo Server.
+ * The response has no policy if its {@code maxAge} is {@code 0} or the response has errors.
+ */
+public class CacheControlInstrumentation extends SimpleInstrumentation {
+
+    public static final String cacheControlDirective = "cacheControl";
+    public static final String maxAgeArgument = "maxAge";
+    public static final String scopeArgument = "scope";
+
+    private static final Object rootParent = new Object();
+
+    private static final Object nullParent = new Object();
+
+    private final Function<DataFetchingEnvironment, Object> parentKey;
+
+    private final Cache<FieldKey, CompletableFuture<Object>> cache;
+
+
+    /**
+     * @param maximumSize maximum number of the cached field results
+     * @param parentKey   identity of the parent of a non-root field, e.g. the id of the source object,
+     *                    null to cache the root fields only
+     */
+    public CacheControlInstrumentation(long maximumSize, Function<DataFetchingEnvironment, Object> parentKey) {
+        this.parentKey = parentKey;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new FieldExpiry())
+                .build();
+    }
+
+    public CacheControlInstrumentation(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new PolicyState();
+    }
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher
+            , InstrumentationFieldFetchParameters parameters) {
+
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        PolicyState state = parameters.getInstrumentationState();
+        boolean root = 1 == environment.getExecutionStepInfo().getPath().getLevel();
+
+        if (OperationDefinition.Operation.QUERY != environment.getOperationDefinition().getOperation()) {
+            state.hint(0, CacheControl.Scope.PUBLIC);
+            return dataFetcher;
+        }
+
+        Hint hint = hint(environment.getFieldDefinition());
+        if (null == hint) {
+            if (root || GraphQLTypeUtil.unwrapAll(environment.getFieldType()) instanceof GraphQLCompositeType) {
+                state.hint(0, CacheControl.Scope.PUBLIC);
+            }
+            return dataFetcher;
+        }
+
+        state.hint(hint.maxAge, hint.scope);
+
+        if (hint.maxAge <= 0 || CacheControl.Scope.PRIVATE == hint.scope || !root && null == parentKey) {
+            return dataFetcher;
+        }
+
+        String coordinates = GraphQLTypeUtil.simplePrint(environment.getParentType())
+                + '.' + environment.getFieldDefinition().getName();
+
+        return fieldEnvironment -> {
+            Object parent = root ? rootParent : parentKey.apply(fieldEnvironment);
+            FieldKey key = new FieldKey(coordinates
+                    , null == parent ? nullParent : parent
+                    , fieldEnvironment.getArguments()
+                    , hint.maxAge);
+
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            CompletableFuture<Object> cached = cache.asMap().putIfAbsent(key, result);
+            if (null != cached) {
+                return cached;
+            }
+
+            fetch(dataFetcher, fieldEnvironment, result);
+            result.whenComplete((value, e) -> {
+                if (!isCacheable(value, e)) {
+                    cache.asMap().remove(key, result);
+                }
+            });
+            return result;
+        };
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult
+            , InstrumentationExecutionParameters parameters) {
+
+        PolicyState state = parameters.getInstrumentationState();
+        int maxAge = state.maxAge.get();
+
+        if (maxAge <= 0 || Integer.MAX_VALUE == maxAge || !executionResult.getErrors().isEmpty()) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (null != executionResult.getExtensions()) {
+            extensions.putAll(executionResult.getExtensions());
+        }
+        extensions.put(CachePolicy.extensionKey, new CachePolicy(maxAge
+                , state.privateScope ? CacheControl.Scope.PRIVATE : CacheControl.Scope.PUBLIC));
+
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+                .from(executionResult)
+                .extensions(extensions)
+                .build());
+    }
+
+    public Cache<?, ?> getCache() {
+        return cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void fetch(DataFetcher<?> dataFetcher
+            , DataFetchingEnvironment environment
+            , CompletableFuture<Object> result) {
+        try {
+            Object value = dataFetcher.get(environment);
+            if (value instanceof CompletionStage) {
+                ((CompletionStage<Object>) value).whenComplete((fetched, e) -> {
+                    if (null == e) {
+                        result.complete(fetched);
+                    } else {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } else {
+                result.complete(value);
+            }
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static boolean isCacheable(Object value, Throwable e) {
+        return null == e && !(value instanceof DataFetcherResult && ((DataFetcherResult<?>) value).hasErrors());
+    }
+
+    /**
+     * @return hint of the field or of its type, null if neither of them has the directive
+     */
+    static Hint hint(GraphQLFieldDefinition fieldDefinition) {
+        Hint hint = hint((GraphQLDirectiveContainer) fieldDefinition);
+        if (null != hint) {
+            return hint;
+        }
+
+        GraphQLType type = GraphQLTypeUtil.unwrapAll(fieldDefinition.getType());
+        return type instanceof GraphQLDirectiveContainer ? hint((GraphQLDirectiveContainer) type) : null;
+    }
+
+    private static Hint hint(GraphQLDirectiveContainer container) {
+        GraphQLDirective directive = container.getDirective(cacheControlDirective);
+        if (null == directive) {
+            return null;
+        }
+
+        Object maxAge = argumentValue(directive.getArgument(maxAgeArgument));
+        Object scope = argumentValue(directive.getArgument(scopeArgument));
+
+        return new Hint(maxAge instanceof Number ? ((Number) maxAge).intValue() : 0
+                , CacheControl.Scope.PRIVATE.name().equals(String.valueOf(scope))
+                        ? CacheControl.Scope.PRIVATE : CacheControl.Scope.PUBLIC);
+    }
+
+    private static Object argumentValue(GraphQLArgument argument) {
+        if (null == argument) {
+            return null;
+        }
+        return argument.hasSetValue() ? GraphQLArgument.getArgumentValue(argument)
+                : GraphQLArgument.getArgumentDefaultValue(argument);
+    }
+
+
+    static final class Hint {
+
+        final int maxAge;
+
+        final CacheControl.Scope scope;
+
+        Hint(int maxAge, CacheControl.Scope scope) {
+            this.maxAge = maxAge;
+            this.scope = scope;
+        }
+    }
+
+    private static final class PolicyState implements InstrumentationState {
+
+        private final AtomicInteger maxAge = new AtomicInteger(Integer.MAX_VALUE);
+
+        private volatile boolean privateScope;
+
+        void hint(int fieldMaxAge, CacheControl.Scope scope) {
+            maxAge.accumulateAndGet(Math.max(0, fieldMaxAge), Math::min);
+            if (CacheControl.Scope.PRIVATE == scope) {
+                privateScope = true;
+            }
+        }
+    }
+
+    private static final class FieldKey {
+
+        private final List<Object> key;
+
+        private final int maxAge;
+
+        FieldKey(String coordinates, Object parent, Map<String, Object> arguments, int maxAge) {
+            this.key = Arrays.asList(coordinates, parent, arguments);
+            this.maxAge = maxAge;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof FieldKey && key.equals(((FieldKey) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    private static final class FieldExpiry implements Expiry<FieldKey, CompletableFuture<Object>> {
+
+        @Override
+        public long expireAfterCreate(FieldKey key, CompletableFuture<Object> value, long currentTime) {
+            return TimeUnit.SECONDS.toNanos(key.maxAge);
+        }
+
+        @Override
+        public long expireAfterUpdate(FieldKey key, CompletableFuture<Object> value, long currentTime
+                , long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(FieldKey key, CompletableFuture<Object> value, long currentTime
+                , long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.cachecontrol.CacheControl;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Cache policy of a response, i.e. the smallest {@code maxAge} of the resolved fields and the {@code PRIVATE} scope
+ * if any of them is private, see {@link CacheControlInstrumentation}.
+ * The policy is kept in the extensions of the result under {@link #extensionKey} and is written as
+ * the {@code Cache-Control} header by {@link org.babich.graphql.GraphQLHttpServletUtil}.
+ */
+public final class CachePolicy {
+
+    public static final String extensionKey = "cachePolicy";
+
+    private final int maxAge;
+
+    private final CacheControl.Scope scope;
+
+
+    public CachePolicy(int maxAge, CacheControl.Scope scope) {
+        this.maxAge = maxAge;
+        this.scope = scope;
+    }
+
+
+    /**
+     * @return the policy of the result or null
+     */
+    public static CachePolicy of(ExecutionResult executionResult) {
+        Map<Object, Object> extensions = executionResult.getExtensions();
+        Object policy = null == extensions ? null : extensions.get(extensionKey);
+        return policy instanceof CachePolicy ? (CachePolicy) policy : null;
+    }
+
+    /**
+     * @return value of the {@code Cache-Control} header, e.g. {@code max-age=60, public}
+     */
+    public String headerValue() {
+        return "max-age=" + maxAge + (CacheControl.Scope.PRIVATE == scope ? ", private" : ", public");
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    public CacheControl.Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CachePolicy.class.getSimpleName() + "[", "]")
+                .add("maxAge=" + maxAge)
+                .add("scope=" + scope)
+                .toString();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of latencies in nanoseconds, in the manner of HdrHistogram.
+ * <p>
+ * Values below 64 are counted exactly, larger values fall into 32 linear sub-buckets of every power of two,
+ * so a percentile is reported with an error of about 3%. Values over {@link #highestTrackableValue} are
+ * counted as that value. The histogram takes about 10 Kb and recording a value does not allocate.
+ */
+public class LatencyHistogram {
+
+    private static final int subBucketBits = 5;
+    private static final int subBucketCount = 1 << subBucketBits;
+    private static final int exactValues = subBucketCount << 1;
+    private static final int maxShift = 39;
+
+    public static final long highestTrackableValue = (((long) exactValues) << maxShift) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(exactValues + maxShift * subBucketCount);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong maxValue = new AtomicLong();
+
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), highestTrackableValue);
+
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+            // retry until the maximum is not less than the value
+        }
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the highest value of the bucket of the percentile, 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (0 == count) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < exactValues) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return exactValues + (shift - 1) * subBucketCount + (int) (value >>> shift) - subBucketCount;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < exactValues) {
+            return index;
+        }
+        int shift = (index - exactValues) / subBucketCount + 1;
+        long subBucket = (index - exactValues) % subBucketCount + subBucketCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.validation.ValidationError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records query execution metrics to a Micrometer {@link MeterRegistry}, nothing is added to the response.
+ * <ul>
+ *     <li>{@code graphql.parse}, {@code graphql.validate} - timers of parsing and validation,
+ *     they are not recorded for preparsed documents</li>
+ *     <li>{@code graphql.request} - timer of execution tagged by {@code operation} and {@code outcome},
+ *     with a percentile histogram</li>
+ *     <li>{@code graphql.errors} - counter of errors tagged by {@code operation} and {@code classification}</li>
+ *     <li>{@code graphql.datafetcher} - timer of non-trivial fetchers tagged by {@code parent} and {@code field},
+ *     recorded for the sampled fraction {@code fieldSampleRate} of requests only</li>
+ * </ul>
+ * See {@link OperationNames} for the {@code operation} tag, the clients choose the operation names, so the tag
+ * has at most {@code maxOperations} values besides the projection names and {@link OperationNames#other}.
+ */
+public class MetricsInstrumentation extends SimpleInstrumentation {
+
+    public static final String parseTimer = "graphql.parse";
+    public static final String validateTimer = "graphql.validate";
+    public static final String requestTimer = "graphql.request";
+    public static final String errorCounter = "graphql.errors";
+    public static final String fieldTimer = "graphql.datafetcher";
+
+    private final MeterRegistry registry;
+
+    private final double fieldSampleRate;
+
+    private final boolean percentileHistogram;
+
+    private final OperationNames.Limited operationNames;
+
+
+    public MetricsInstrumentation(MeterRegistry registry) {
+        this(registry, 0.1, true);
+    }
+
+    public MetricsInstrumentation(MeterRegistry registry, double fieldSampleRate, boolean percentileHistogram) {
+        this(registry, fieldSampleRate, percentileHistogram, new OperationNames.Limited(Collections.emptySet(), 100));
+    }
+
+    /**
+     * @param fieldSampleRate fraction of requests whose data fetchers are timed, from 0 to 1
+     * @param percentileHistogram publish the histogram of {@code graphql.request} for percentiles
+     * @param operationNames values of the {@code operation} tag
+     */
+    public MetricsInstrumentation(MeterRegistry registry
+            , double fieldSampleRate
+            , boolean percentileHistogram
+            , OperationNames.Limited operationNames) {
+        if (fieldSampleRate < 0 || fieldSampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate must be from 0 to 1 but was " + fieldSampleRate);
+        }
+        this.registry = registry;
+        this.fieldSampleRate = fieldSampleRate;
+        this.percentileHistogram = percentileHistogram;
+        this.operationNames = operationNames;
+    }
+
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new MetricsState(fieldSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < fieldSampleRate);
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+        Timer.Sample sample = Timer.start(registry);
+        return SimpleInstrumentationContext.whenCompleted((document, throwable) ->
+                sample.stop(registry.timer(parseTimer)));
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        Timer.Sample sample = Timer.start(registry);
+        return SimpleInstrumentationContext.whenCompleted((errors, throwable) ->
+                sample.stop(registry.timer(validateTimer)));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters) {
+        Timer.Sample sample = Timer.start(registry);
+        String operation = operationNames.of(parameters.getExecutionInput());
+
+        return SimpleInstrumentationContext.whenCompleted((result, throwable) -> {
+            List<GraphQLError> errors = null == result ? null : result.getErrors();
+            boolean failed = null != throwable || (null != errors && !errors.isEmpty());
+
+            sample.stop(Timer.builder(requestTimer)
+                    .tag("operation", operation)
+                    .tag("outcome", failed ? "error" : "success")
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(registry));
+
+            if (null != throwable) {
+                registry.counter(errorCounter, "operation", operation
+                        , "classification", throwable.getClass().getSimpleName()).increment();
+            }
+
+            if (null != errors) {
+                errors.forEach(error -> registry.counter(errorCounter, "operation", operation
+                        , "classification", String.valueOf(error.getErrorType())).increment());
+            }
+        });
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+        MetricsState state = parameters.getInstrumentationState();
+        if (null == state || !state.sampled || parameters.isTrivialDataFetcher()) {
+            return SimpleInstrumentationContext.noOp();
+        }
+
+        Timer.Sample sample = Timer.start(registry);
+        String parent = parameters.getExecutionStepInfo().getObjectType().getName();
+        String field = parameters.getField().getName();
+
+        return SimpleInstrumentationContext.whenCompleted((value, throwable) ->
+                sample.stop(registry.timer(fieldTimer, "parent", parent, "field", field)));
+    }
+
+    public double getFieldSampleRate() {
+        return fieldSampleRate;
+    }
+
+
+    static class MetricsState implements InstrumentationState {
+
+        final boolean sampled;
+
+        MetricsState(boolean sampled) {
+            this.sampled = sampled;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import org.babich.graphql.ProjectionDocumentProvider;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name of an operation for metrics and logs.
+ * The name of a projection is its query, which is the key of {@code documentProjectionQueries},
+ * an open query is named by its operation name.
+ * Open queries without the operation name share the one {@link #anonymous} name. The names come from the clients,
+ * so the number of names is not bounded, see {@link Limited} for the names of meters.
+ */
+public final class OperationNames {
+
+    public static final String anonymous = "anonymous";
+
+    public static final String other = "other";
+
+    private OperationNames() {
+    }
+
+    public static String of(ExecutionInput executionInput) {
+        Object context = executionInput.getContext();
+        if (context instanceof GraphQLContext && !ProjectionDocumentProvider.isNotProjection((GraphQLContext) context)) {
+            return executionInput.getQuery();
+        }
+
+        String operationName = executionInput.getOperationName();
+
+        return null == operationName || operationName.isEmpty() ? anonymous : operationName;
+    }
+
+
+    /**
+     * Operation names of a bounded number. The fixed names, e.g. the projection names, are always kept,
+     * at most {@code maxNames} of the other names are kept in the order they come, the rest are {@link #other}.
+     */
+    public static final class Limited {
+
+        private final Set<String> fixedNames;
+
+        private final int maxNames;
+
+        private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+        public Limited(Collection<String> fixedNames, int maxNames) {
+            this.fixedNames = null == fixedNames ? Collections.emptySet() : new HashSet<>(fixedNames);
+            this.maxNames = maxNames;
+        }
+
+        public String of(ExecutionInput executionInput) {
+            return limit(OperationNames.of(executionInput));
+        }
+
+        public String limit(String name) {
+            if (fixedNames.contains(name) || names.contains(name)) {
+                return name;
+            }
+            if (names.size() >= maxNames) {
+                return other;
+            }
+
+            synchronized (names) {
+                if (names.size() < maxNames) {
+                    names.add(name);
+                    return name;
+                }
+            }
+            return other;
+        }
+
+        public int getMaxNames() {
+            return maxNames;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Limited.class.getSimpleName() + "[", "]")
+                    .add("fixedNames=" + fixedNames.size())
+                    .add("maxNames=" + maxNames)
+                    .toString();
+        }
+    }
+}
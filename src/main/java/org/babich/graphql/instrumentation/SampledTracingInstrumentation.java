@@ -0,0 +1,129 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.execution.instrumentation.tracing.TracingInstrumentation;
+import graphql.execution.instrumentation.tracing.TracingSupport;
+import graphql.language.Document;
+import graphql.validation.ValidationError;
+import org.babich.graphql.GraphQLContextBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link TracingInstrumentation} of a sampled fraction of requests and of the requests carrying the trace header.
+ * <p>
+ * The decision is made once per request, an untraced request gets no tracing state,
+ * so it allocates nothing and its response is not changed.
+ * The trace of a traced request is sent to the {@link TraceSink} if there is one,
+ * otherwise it is added to the response {@code extensions} as {@link TracingInstrumentation} does.
+ */
+public class SampledTracingInstrumentation extends TracingInstrumentation {
+
+    private final double sampleRate;
+
+    private final String header;
+
+    private final TraceSink traceSink;
+
+
+    /**
+     * @param sampleRate fraction of requests that are traced, from 0 to 1
+     * @param header name of the request header that turns tracing on, might be null
+     * @param traceSink receiver of the traces, null to return them in the response
+     */
+    public SampledTracingInstrumentation(double sampleRate, String header, TraceSink traceSink) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate must be from 0 to 1 but was " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.header = null == header || header.isEmpty() ? null : header;
+        this.traceSink = traceSink;
+    }
+
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        if (isTraced(parameters.getExecutionInput().getContext())) {
+            return createState();
+        }
+        return null;
+    }
+
+    private boolean isTraced(Object context) {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return true;
+        }
+
+        if (null == header || !(context instanceof GraphQLContext)) {
+            return false;
+        }
+
+        HttpServletRequest request = ((GraphQLContext) context).get(GraphQLContextBuilder.httpServletRequest);
+
+        return null != request && null != request.getHeader(header);
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+        return null == parameters.getInstrumentationState() ? SimpleInstrumentationContext.noOp()
+                : super.beginParse(parameters);
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return null == parameters.getInstrumentationState() ? SimpleInstrumentationContext.noOp()
+                : super.beginValidation(parameters);
+    }
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+        return null == parameters.getInstrumentationState() ? SimpleInstrumentationContext.noOp()
+                : super.beginFieldFetch(parameters);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult
+            , InstrumentationExecutionParameters parameters) {
+
+        TracingSupport tracingSupport = parameters.getInstrumentationState();
+
+        if (null == tracingSupport) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        if (null == traceSink) {
+            return super.instrumentExecutionResult(executionResult, parameters);
+        }
+
+        traceSink.accept(OperationNames.of(parameters.getExecutionInput()), tracingSupport.snapshotTracingData());
+
+        return CompletableFuture.completedFuture(executionResult);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public TraceSink getTraceSink() {
+        return traceSink;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks latency percentiles of every operation and logs the queries that take longer than the threshold.
+ * <p>
+ * Operations are named by {@link OperationNames}, i.e. by the projection name or by the operation name.
+ * The number of tracked operations is limited by {@code maxOperations}, the other operations are tracked
+ * together as {@link #otherOperations}. Values of variables are not logged, only their names.
+ */
+public class SlowQueryInstrumentation extends SimpleInstrumentation {
+
+    public static final String otherOperations = OperationNames.other;
+
+    private static final String redacted = "***";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final long thresholdNanos;
+
+    private final int maxOperations;
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+
+    public SlowQueryInstrumentation(Duration threshold) {
+        this(threshold, 1000);
+    }
+
+    public SlowQueryInstrumentation(Duration threshold, int maxOperations) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxOperations = maxOperations;
+    }
+
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters) {
+        long start = System.nanoTime();
+
+        return SimpleInstrumentationContext.whenCompleted((result, throwable) -> {
+            long elapsed = System.nanoTime() - start;
+            String operation = OperationNames.of(parameters.getExecutionInput());
+
+            histogram(operation).record(elapsed);
+
+            if (elapsed >= thresholdNanos) {
+                logger.warn("Slow GraphQL operation {} took {} ms, variables {}."
+                        , operation, elapsed / 1_000_000, redact(parameters.getVariables()));
+            }
+        });
+    }
+
+    private LatencyHistogram histogram(String operation) {
+        LatencyHistogram histogram = histograms.get(operation);
+        if (null != histogram) {
+            return histogram;
+        }
+
+        String key = histograms.size() < maxOperations ? operation : otherOperations;
+        return histograms.computeIfAbsent(key, name -> new LatencyHistogram());
+    }
+
+    private static Map<String, Object> redact(Map<String, Object> variables) {
+        if (null == variables || variables.isEmpty()) {
+            return variables;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        variables.keySet().forEach(name -> result.put(name, redacted));
+        return result;
+    }
+
+    /**
+     * @param limit maximum number of operations
+     * @return statistics of the operations from the slowest by the 99th percentile
+     */
+    public List<OperationStatistics> getSlowest(int limit) {
+        return histograms.entrySet().stream()
+                .map(entry -> new OperationStatistics(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(OperationStatistics::getP99)
+                        .thenComparing(OperationStatistics::getMax).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+
+    /**
+     * Latency percentiles of an operation at the moment of the snapshot.
+     */
+    public static final class OperationStatistics {
+
+        private final String operation;
+        private final long count;
+        private final Duration p50;
+        private final Duration p90;
+        private final Duration p99;
+        private final Duration max;
+
+        OperationStatistics(String operation, LatencyHistogram histogram) {
+            this.operation = operation;
+            this.count = histogram.getCount();
+            this.p50 = Duration.ofNanos(histogram.getValueAtPercentile(50));
+            this.p90 = Duration.ofNanos(histogram.getValueAtPercentile(90));
+            this.p99 = Duration.ofNanos(histogram.getValueAtPercentile(99));
+            this.max = Duration.ofNanos(histogram.getMax());
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Duration getP50() {
+            return p50;
+        }
+
+        public Duration getP90() {
+            return p90;
+        }
+
+        public Duration getP99() {
+            return p99;
+        }
+
+        public Duration getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", OperationStatistics.class.getSimpleName() + "[", "]")
+                    .add("operation='" + operation + "'")
+                    .add("count=" + count)
+                    .add("p50=" + p50.toMillis() + "ms")
+                    .add("p90=" + p90.toMillis() + "ms")
+                    .add("p99=" + p99.toMillis() + "ms")
+                    .add("max=" + max.toMillis() + "ms")
+                    .toString();
+        }
+    }
+}
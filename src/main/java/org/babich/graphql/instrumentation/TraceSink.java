@@ -0,0 +1,106 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Receiver of the traces of {@link SampledTracingInstrumentation}, used instead of the response {@code extensions}.
+ * The trace is the Apollo tracing data of the request, the same as {@code extensions.tracing} of the response.
+ * Implementations are called from request threads and must be thread-safe.
+ */
+public interface TraceSink {
+
+    void accept(String operation, Map<String, Object> trace);
+
+
+    /**
+     * Keeps the last {@code capacity} traces in memory, older traces are overwritten.
+     */
+    class RingBuffer implements TraceSink {
+
+        private final AtomicReferenceArray<Trace> traces;
+
+        private final AtomicLong next = new AtomicLong();
+
+
+        public RingBuffer(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("The capacity must be positive but was " + capacity);
+            }
+            this.traces = new AtomicReferenceArray<>(capacity);
+        }
+
+        @Override
+        public void accept(String operation, Map<String, Object> trace) {
+            int index = (int) (next.getAndIncrement() % traces.length());
+            traces.set(index, new Trace(operation, System.currentTimeMillis(), trace));
+        }
+
+        /**
+         * @return traces from the oldest to the newest
+         */
+        public List<Trace> snapshot() {
+            long last = next.get();
+            int capacity = traces.length();
+            List<Trace> result = new ArrayList<>(capacity);
+
+            for (long i = Math.max(0, last - capacity); i < last; i++) {
+                Trace trace = traces.get((int) (i % capacity));
+                if (null != trace) {
+                    result.add(trace);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        public int getCapacity() {
+            return traces.length();
+        }
+    }
+
+
+    final class Trace {
+
+        private final String operation;
+        private final long timestamp;
+        private final Map<String, Object> data;
+
+        public Trace(String operation, long timestamp, Map<String, Object> data) {
+            this.operation = operation;
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return time of the trace in milliseconds since the epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Map<String, Object> getData() {
+            return data;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Trace.class.getSimpleName() + "[", "]")
+                    .add("operation='" + operation + "'")
+                    .add("timestamp=" + timestamp)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.StringJoiner;
+
+/**
+ * Strategy of identifying the client of a request, the requests of a client share its rate limit.
+ */
+public interface ClientKeyStrategy {
+
+    String clientKey(HttpServletRequest request);
+
+
+    /**
+     * The remote address of the connection is the client key.
+     */
+    ClientKeyStrategy remoteAddress = HttpServletRequest::getRemoteAddr;
+
+
+    /**
+     * The client key is taken from a header set by the gateway, e.g. an API key or {@code X-Forwarded-For}.
+     * Every proxy appends the address it sees to a comma separated list, so only the values appended by
+     * the trusted proxies can be relied on: the value {@code trustedHops} from the right is used,
+     * the right-most one by default, the values on the left of it are set by the client and are ignored.
+     * The remote address is used if the header is missing.
+     */
+    class Header implements ClientKeyStrategy {
+
+        private final String header;
+
+        private final int trustedHops;
+
+        public Header(String header) {
+            this(header, 1);
+        }
+
+        /**
+         * @param trustedHops number of trusted proxies in front of the application that append to the header
+         */
+        public Header(String header, int trustedHops) {
+            if (trustedHops < 1) {
+                throw new IllegalArgumentException("The number of trusted hops must be positive.");
+            }
+            this.header = header;
+            this.trustedHops = trustedHops;
+        }
+
+        @Override
+        public String clientKey(HttpServletRequest request) {
+            String value = request.getHeader(header);
+            if (null == value || value.isEmpty()) {
+                return request.getRemoteAddr();
+            }
+
+            int end = value.length();
+            int comma = value.lastIndexOf(',');
+            for (int hop = 1; hop < trustedHops && comma >= 0; hop++) {
+                end = comma;
+                comma = value.lastIndexOf(',', end - 1);
+            }
+            return value.substring(comma + 1, end).trim();
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Header.class.getSimpleName() + "[", "]")
+                    .add("header='" + header + "'")
+                    .add("trustedHops=" + trustedHops)
+                    .toString();
+        }
+    }
+}
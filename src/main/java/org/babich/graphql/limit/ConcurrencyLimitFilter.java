@@ -0,0 +1,154 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests executed at the same time to {@code maxConcurrent}.
+ * <p>
+ * A request that finds no free permit waits for up to {@code maxWait}, at most {@code maxQueued} requests wait
+ * at the same time. A request is rejected with {@code 429 Too Many Requests} at once if the queue is full,
+ * or when its wait times out. The permit of an asynchronous request is released when the request completes.
+ */
+public class ConcurrencyLimitFilter implements Filter {
+
+    public static final int tooManyRequests = 429;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int maxConcurrent;
+
+    private final int maxQueued;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+
+    public ConcurrencyLimitFilter(int maxConcurrent, int maxQueued, Duration maxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!acquire()) {
+            rejected.increment();
+            logger.debug("The request is rejected, {} requests are executed and {} are queued."
+                    , maxConcurrent, queued.get());
+
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.sendError(tooManyRequests);
+            return;
+        }
+
+        Release release = new Release();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(release);
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+
+    /**
+     * Releases the permit once, either after a synchronous request or on completion of an asynchronous one.
+     */
+    private class Release implements AsyncListener, Runnable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
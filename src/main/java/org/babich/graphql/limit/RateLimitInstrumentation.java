@@ -0,0 +1,117 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import org.babich.graphql.GraphQLContextBuilder;
+import org.babich.graphql.analysis.CostFieldComplexityCalculator;
+import org.babich.graphql.analysis.DocumentAnalysis;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of each client in query cost units, see {@link org.babich.graphql.analysis.QueryCost}.
+ * <p>
+ * The client of a request is identified by the {@link HttpServletRequest} of the {@link GraphQLContext}
+ * and its {@link TokenBucket} is charged by the cost of the operation before it is executed.
+ * A request without the servlet request is not limited. The buckets are kept in a bounded concurrent map,
+ * a bucket that is not used for its refill time is full and so is evicted.
+ * <p>
+ * A query that costs more than the burst could never be executed, so it is rejected with its own error
+ * rather than {@code rate limit exceeded}, the burst should not be less than the maximum query cost.
+ */
+public class RateLimitInstrumentation extends SimpleInstrumentation {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final double costPerSecond;
+
+    private final long burst;
+
+    private final ClientKeyStrategy clientKeyStrategy;
+
+    private final FieldComplexityCalculator calculator;
+
+    private final Cache<String, TokenBucket> buckets;
+
+
+    public RateLimitInstrumentation(double costPerSecond
+            , long burst
+            , ClientKeyStrategy clientKeyStrategy
+            , int maxClients
+            , FieldComplexityCalculator calculator) {
+        this.costPerSecond = costPerSecond;
+        this.burst = burst;
+        this.clientKeyStrategy = clientKeyStrategy;
+        this.calculator = calculator;
+
+        long refillNanos = new TokenBucket(costPerSecond, burst).getRefillNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(Math.max(refillNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    public RateLimitInstrumentation(double costPerSecond, long burst, ClientKeyStrategy clientKeyStrategy) {
+        this(costPerSecond, burst, clientKeyStrategy, 10000, new CostFieldComplexityCalculator());
+    }
+
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters) {
+
+        ExecutionContext executionContext = parameters.getExecutionContext();
+
+        HttpServletRequest request = request(executionContext);
+        if (null == request) {
+            return super.beginExecuteOperation(parameters);
+        }
+
+        String client = clientKeyStrategy.clientKey(request);
+        int cost = DocumentAnalysis.of(executionContext).cost(executionContext, calculator).getCost();
+
+        if (cost > burst) {
+            throw new AbortExecutionException("query cost exceeds the rate limit burst " + cost + " > " + burst);
+        }
+
+        if (!buckets.get(String.valueOf(client), key -> new TokenBucket(costPerSecond, burst)).tryAcquire(cost)) {
+            logger.debug("The client {} exceeds the rate limit, the query cost is {}.", client, cost);
+            throw new AbortExecutionException("rate limit exceeded");
+        }
+
+        return super.beginExecuteOperation(parameters);
+    }
+
+    private static HttpServletRequest request(ExecutionContext executionContext) {
+        Object context = executionContext.getContext();
+        if (!(context instanceof GraphQLContext)) {
+            return null;
+        }
+        Object request = ((GraphQLContext) context).get(GraphQLContextBuilder.httpServletRequest);
+        return request instanceof HttpServletRequest ? (HttpServletRequest) request : null;
+    }
+
+    public double getCostPerSecond() {
+        return costPerSecond;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that holds up to {@code capacity} tokens and is refilled at {@code tokensPerSecond}.
+ * <p>
+ * The state of the bucket is the single time at which it is full again, so taking tokens is one
+ * compare-and-set of that time and there is no refill task.
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+
+    private final long nanosPerToken;
+
+    private final long capacityNanos;
+
+    private final AtomicLong fullAt;
+
+
+    public TokenBucket(double tokensPerSecond, long capacity) {
+        this(tokensPerSecond, capacity, System.nanoTime());
+    }
+
+    TokenBucket(double tokensPerSecond, long capacity, long now) {
+        if (tokensPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("The rate and capacity of token bucket must be positive.");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+        this.capacityNanos = Math.multiplyExact(capacity, nanosPerToken);
+        this.fullAt = new AtomicLong(now);
+    }
+
+
+    /**
+     * @return true if the tokens are taken, false if the bucket has not enough tokens, then nothing is taken.
+     * More tokens than the capacity are never taken, see {@link #getCapacity()}.
+     */
+    public boolean tryAcquire(long tokens) {
+        return tryAcquire(tokens, System.nanoTime());
+    }
+
+    boolean tryAcquire(long tokens, long now) {
+        if (tokens > capacity) {
+            return false;
+        }
+
+        long tokensNanos = tokens * nanosPerToken;
+
+        for (;;) {
+            long full = fullAt.get();
+            long next = (full - now < 0 ? now : full) + tokensNanos;
+
+            if (next - now > capacityNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(full, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return time that the bucket takes to be refilled from empty to full
+     */
+    public long getRefillNanos() {
+        return capacityNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", TokenBucket.class.getSimpleName() + "[", "]")
+                .add("capacity=" + capacity)
+                .add("nanosPerToken=" + nanosPerToken)
+                .toString();
+    }
+}
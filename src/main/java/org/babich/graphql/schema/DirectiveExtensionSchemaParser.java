@@ -6,18 +6,25 @@ package org.babich.graphql.schema;
 
 import graphql.GraphQLError;
 import graphql.language.*;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.MultiSourceReader;
+import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
 import graphql.schema.idl.SchemaParser;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.errors.SchemaProblem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * The directive '@connection' is extending the schema for the specified type as below:
@@ -50,195 +57,191 @@ import java.util.stream.Stream;
  *             				. . .
  *            }
  * </pre>
+ * The directives '@cost' and '@cacheControl' are declared when they are used, see {@link SchemaDirectiveExpander},
+ * and the application might add expanders of its own directives.
  */
 public class DirectiveExtensionSchemaParser extends SchemaParser {
 
-    @Override
-    public TypeDefinitionRegistry buildRegistry(Document document) {
-        List<GraphQLError> errors = new ArrayList<>();
-        TypeDefinitionRegistry typeRegistry = new TypeDefinitionRegistry();
+    private final Map<String, SchemaDirectiveExpander> expanders;
 
-        Consumer<ObjectTypeDefinition> objectTypeDefinitionConsumer =
-                registrationOfSDLDefinitions(document, typeRegistry, errors);
 
-        List<DirectiveWithField> directiveWithFields = findDirectiveWithField(document);
-
-        createdRelayCursorTypeDefinitions(directiveWithFields).forEach(objectTypeDefinitionConsumer);
-
-        if (errors.isEmpty()) {
-            return typeRegistry;
-        }
+    public DirectiveExtensionSchemaParser() {
+        this(Collections.emptyList());
+    }
 
-        throw new SchemaProblem(errors);
+    /**
+     * @param expanders expanders of the application, an expander replaces the default one of the same directive,
+     *                  see {@link #defaultExpanders()}
+     */
+    public DirectiveExtensionSchemaParser(Collection<? extends SchemaDirectiveExpander> expanders) {
+        Map<String, SchemaDirectiveExpander> result = new LinkedHashMap<>();
+        defaultExpanders().forEach(expander -> result.put(expander.getDirectiveName(), expander));
+        expanders.forEach(expander -> result.put(expander.getDirectiveName(), expander));
+        this.expanders = Collections.unmodifiableMap(result);
     }
 
 
+    /**
+     * Parses every source separately on the fork-join pool, the definitions of all the sources are registered
+     * together, so a type might be extended and a {@code @connection} type might be referred from another source.
+     *
+     * @param sources SDL by source name, the name is shown in the syntax errors
+     * @return registry of all the sources
+     */
     @SuppressWarnings("rawtypes")
-    private Consumer<ObjectTypeDefinition> registrationOfSDLDefinitions(Document document
-            , TypeDefinitionRegistry typeRegistry
-            , List<GraphQLError> errors) {
-
-        Consumer<SDLDefinition> registrationExistedDefinitions = item -> typeRegistry.add(item).ifPresent(errors::add);
+    public TypeDefinitionRegistry parse(Map<String, String> sources) {
+        List<Definition> definitions = sources.entrySet().parallelStream()
+                .map(source -> parseDocument(source.getKey(), source.getValue()))
+                .flatMap(document -> document.getDefinitions().stream())
+                .collect(Collectors.toList());
 
-        Predicate<SDLDefinition> onlyTypeDefinition = item -> TypeDefinition.class.isAssignableFrom(item.getClass());
+        return buildRegistry(Document.newDocument().definitions(definitions).build());
+    }
 
-        Stream<SDLDefinition> documentDefinitionStream = document.getDefinitionsOfType(SDLDefinition.class)
-                .stream()
-                .peek(registrationExistedDefinitions);
+    private static Document parseDocument(String sourceName, String sdl) {
+        MultiSourceReader reader = MultiSourceReader.newMultiSourceReader()
+                .string(sdl, sourceName)
+                .trackData(false)
+                .build();
+        try {
+            return new Parser().parseDocument(reader, ParserOptions.getDefaultSdlParserOptions());
+        } catch (InvalidSyntaxException e) {
+            throw new SchemaProblem(Collections.singletonList(e.toInvalidSyntaxError()));
+        }
+    }
 
-        Map<String, TypeDefinition> definitionMap = documentDefinitionStream
-                .filter(onlyTypeDefinition)
-                .map(TypeDefinition.class::cast)
-                .collect(Collectors.toMap(TypeDefinition::getName, Function.identity()));
+    /**
+     * Registers the definitions of the document and expands it in a single pass: the directives of the object
+     * and interface types and of their fields are dispatched to the expander of the directive by name.
+     * The generated definitions are registered after all the definitions of the document, a type or a directive
+     * of the document is never replaced by a generated one.
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public TypeDefinitionRegistry buildRegistry(Document document) {
+        List<GraphQLError> errors = new ArrayList<>();
+        TypeDefinitionRegistry typeRegistry = new TypeDefinitionRegistry();
+        Expansion expansion = new Expansion();
 
-        return item -> {
-            if (definitionMap.containsKey(item.getName())) {
-                return;
+        for (Definition definition : document.getDefinitions()) {
+            if (!(definition instanceof SDLDefinition)) {
+                continue;
             }
 
-            definitionMap.put(item.getName(), item);
-            typeRegistry.add(item).ifPresent(errors::add);
-        };
-    }
-
-    private List<DirectiveWithField> findDirectiveWithField(Document document) {
+            typeRegistry.add((SDLDefinition) definition).ifPresent(errors::add);
 
-        List<ObjectTypeDefinition> definitions = document.getDefinitionsOfType(ObjectTypeDefinition.class);
+            if (definition instanceof ImplementingTypeDefinition) {
+                expand((ImplementingTypeDefinition<?>) definition, expansion);
+            }
+        }
 
-        Function<ObjectTypeDefinition, Stream<FieldDefinition>> toFieldDefinition = (definition) ->
-                definition.getFieldDefinitions().stream();
+        expansion.complete();
+        expansion.register(typeRegistry, errors);
 
-        Function<FieldDefinition, Stream<DirectiveWithField>> toDirectives = (definition) ->
-                definition.getDirectives().stream()
-                        .map(toDirectivesWithField(definition));
+        if (errors.isEmpty()) {
+            return typeRegistry;
+        }
 
-        return definitions.stream()
-                .flatMap(toFieldDefinition)
-                .flatMap(toDirectives)
-                .collect(Collectors.toList());
+        throw new SchemaProblem(errors);
     }
 
-    private Function<Directive, DirectiveWithField> toDirectivesWithField(FieldDefinition fieldDefinition) {
-
-        return item -> new DirectiveWithField(fieldDefinition
-                , item.getName()
-                , item.getArguments()
-                , item.getSourceLocation()
-                , item.getComments()
-                , item.getIgnoredChars()
-                , item.getAdditionalData());
+    /**
+     * @return the expanders by the directive name
+     */
+    public Map<String, SchemaDirectiveExpander> getExpanders() {
+        return expanders;
     }
 
-    private Stream<ObjectTypeDefinition> createdRelayCursorTypeDefinitions(List<DirectiveWithField> directives) {
-        return directives.stream()
-                .filter(RelayCursorConnectionsSchemaDefinitionHelper.isConnection)
-                .flatMap(RelayCursorConnectionsSchemaDefinitionHelper::createDefinitions);
+    /**
+     * @return the classes and the versions of the expanders, the version of a {@link SchemaSnapshot}
+     */
+    public String getExpandersVersion() {
+        return expanders.values().stream()
+                .map(expander -> expander.getClass().getName() + ':' + expander.getVersion())
+                .collect(Collectors.joining(","));
     }
 
-    private Stream<ObjectTypeDefinition> createdFetchDefinitions(List<DirectiveWithField> directives) {
-        return directives.stream()
-                .filter(RelayCursorConnectionsSchemaDefinitionHelper.isConnection)
-                .flatMap(RelayCursorConnectionsSchemaDefinitionHelper::createDefinitions);
+    public static List<SchemaDirectiveExpander> defaultExpanders() {
+        return Arrays.asList(new SchemaDirectiveExpander.Connection()
+                , new SchemaDirectiveExpander.Cost()
+                , new SchemaDirectiveExpander.CacheControl());
     }
 
-    static class RelayCursorConnectionsSchemaDefinitionHelper {
 
-        static final Predicate<DirectiveWithField> isConnection = (directive) ->
-                "connection".equals(directive.getName());
+    private void expand(ImplementingTypeDefinition<?> type, Expansion expansion) {
 
-        static private Stream<ObjectTypeDefinition> createDefinitions(DirectiveWithField directive) {
-            String type = directive.getTypeName();
-
-            return Stream.<ObjectTypeDefinition>builder()
-                    .add(createConnectionDefinition(type))
-                    .add(createEdgeDefinition(type, forTypeName(directive)))
-                    .add(createPageInfo())
-                    .build();
-        }
-
-        static private String forTypeName(Directive directive) {
-            graphql.language.Value<?> value = directive.getArgument("for").getValue();
-            if (value instanceof StringValue) {
-                return ((StringValue) value).getValue();
+        for (Directive directive : type.getDirectives()) {
+            SchemaDirectiveExpander expander = expansion.use(directive);
+            if (null != expander) {
+                expander.expandType(type, directive, expansion);
             }
-
-            throw new IllegalArgumentException("Unsupported value type " + value.getClass());
         }
 
-        static private ObjectTypeDefinition createConnectionDefinition(String type) {
-            FieldDefinition edgesDefinition =
-                    new FieldDefinition("edges", new ListType(new TypeName(type + "Edge")));
-
-            FieldDefinition pageInfoDefinition =
-                    new FieldDefinition("pageInfo", new TypeName("PageInfo"));
-
-            return ObjectTypeDefinition.newObjectTypeDefinition()
-                    .name(type)
-                    .fieldDefinition(edgesDefinition)
-                    .fieldDefinition(pageInfoDefinition)
-                    .build();
+        for (FieldDefinition field : type.getFieldDefinitions()) {
+            for (Directive directive : field.getDirectives()) {
+                SchemaDirectiveExpander expander = expansion.use(directive);
+                if (null != expander) {
+                    expander.expandField(type, field, directive, expansion);
+                }
+            }
         }
+    }
 
-        static private ObjectTypeDefinition createEdgeDefinition(String connectionType, String nodeType) {
-            FieldDefinition cursorDefinition = new FieldDefinition("cursor", new TypeName("String"));
-            FieldDefinition nodeDefinition = new FieldDefinition("node", new TypeName(nodeType));
-
-            return ObjectTypeDefinition.newObjectTypeDefinition()
-                    .name(connectionType + "Edge")
-                    .fieldDefinition(cursorDefinition)
-                    .fieldDefinition(nodeDefinition)
-                    .build();
-        }
 
-        static private ObjectTypeDefinition createPageInfo() {
-            FieldDefinition hasPreviousPageDefinition =
-                    new FieldDefinition("hasPreviousPage", new NonNullType(new TypeName("Boolean")));
+    /**
+     * The definitions generated while the document is built, by name.
+     */
+    @SuppressWarnings("rawtypes")
+    private class Expansion implements SchemaDirectiveExpander.Context {
 
-            FieldDefinition hasNextPageDefinition =
-                    new FieldDefinition("hasNextPage", new NonNullType(new TypeName("Boolean")));
+        private final Map<String, TypeDefinition> types = new LinkedHashMap<>();
 
-            FieldDefinition startCursorDefinition =
-                    new FieldDefinition("startCursor", new NonNullType(new TypeName("String")));
+        private final Map<String, DirectiveDefinition> directives = new LinkedHashMap<>();
 
-            FieldDefinition endCursorDefinition =
-                    new FieldDefinition("endCursor", new NonNullType(new TypeName("String")));
+        private final Set<SchemaDirectiveExpander> used = new LinkedHashSet<>();
 
-            return ObjectTypeDefinition.newObjectTypeDefinition()
-                    .name("PageInfo")
-                    .fieldDefinition(hasPreviousPageDefinition)
-                    .fieldDefinition(hasNextPageDefinition)
-                    .fieldDefinition(startCursorDefinition)
-                    .fieldDefinition(endCursorDefinition)
-                    .build();
+        SchemaDirectiveExpander use(Directive directive) {
+            SchemaDirectiveExpander expander = expanders.get(directive.getName());
+            if (null != expander) {
+                used.add(expander);
+            }
+            return expander;
         }
-    }
 
-    static class DirectiveWithField extends Directive {
+        @Override
+        public void defineType(String name, Supplier<? extends TypeDefinition> definition) {
+            types.computeIfAbsent(name, key -> definition.get());
+        }
 
-        final FieldDefinition field;
+        @Override
+        public void defineDirective(String name, Supplier<DirectiveDefinition> definition) {
+            directives.computeIfAbsent(name, key -> definition.get());
+        }
 
-        protected DirectiveWithField(FieldDefinition field
-                , String name
-                , List<Argument> arguments
-                , SourceLocation sourceLocation
-                , List<Comment> comments
-                , IgnoredChars ignoredChars
-                , Map<String, String> additionalData) {
-            super(name, arguments, sourceLocation, comments, ignoredChars, additionalData);
-            this.field = field;
+        void complete() {
+            used.forEach(expander -> expander.complete(this));
         }
 
-        String getTypeName() {
+        void register(TypeDefinitionRegistry typeRegistry, List<GraphQLError> errors) {
+            directives.forEach((name, definition) -> {
+                if (!typeRegistry.getDirectiveDefinition(name).isPresent()) {
+                    typeRegistry.add(definition).ifPresent(errors::add);
+                }
+            });
 
-            Type<?> type = field.getType();
-            if (type instanceof NonNullType) {
-                TypeName typeName = (TypeName) ((NonNullType) type).getType();
-                return typeName.getName();
+            if (types.isEmpty()) {
+                return;
             }
 
-            TypeName typeName = (TypeName) type;
-            return typeName.getName();
-        }
+            // every lookup of TypeDefinitionRegistry.getType copies the scalars on a miss
+            Map<String, TypeDefinition> definedTypes = typeRegistry.types();
+            Map<String, ScalarTypeDefinition> definedScalars = typeRegistry.scalars();
 
+            types.forEach((name, definition) -> {
+                if (!definedTypes.containsKey(name) && !definedScalars.containsKey(name)) {
+                    typeRegistry.add(definition).ifPresent(errors::add);
+                }
+            });
+        }
     }
 }
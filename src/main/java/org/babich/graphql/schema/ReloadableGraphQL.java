@@ -0,0 +1,244 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.GraphQL;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.schema.GraphQLSchema;
+import org.babich.graphql.RefreshableDocumentProvider;
+import org.babich.graphql.SchemaStringProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holder of the {@link GraphQL} whose schema is reloaded when the schema files are changed.
+ * <p>The directories of {@link SchemaStringProvider#schemaLocations()} are watched by a {@link WatchService},
+ * the schema is reloaded after the changes are quiet for a while. The new schema is built on a background
+ * thread and the {@link GraphQL} is swapped at once, a request keeps the instance it has started with.
+ * The sources that are not changed, e.g. touched files, do not reload the schema.</p>
+ * <p>The preparsed documents still valid against the new schema are kept, the other documents and the cached
+ * errors are dropped, see {@link SchemaBoundDocumentProvider}. A schema that fails to build is logged and
+ * the current one is kept.</p>
+ */
+public class ReloadableGraphQL implements Supplier<GraphQL>, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadableGraphQL.class);
+
+    private final SchemaStringProvider schemaStringProvider;
+
+    private final Function<Map<String, String>, GraphQLSchema> schemaFactory;
+
+    private final Duration quietPeriod;
+
+    private final SchemaBoundDocumentProvider documentProvider;
+
+    private final List<Consumer<GraphQL>> listeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "graphql-schema-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile GraphQL graphQL;
+
+    private volatile Map<String, String> sources;
+
+    private volatile WatchService watchService;
+
+    private volatile Thread watcher;
+
+
+    /**
+     * @param graphQL              the current instance, the new ones are its copies with another schema
+     * @param schemaStringProvider sources and locations of the schema
+     * @param schemaFactory        executable schema of the sources
+     * @param quietPeriod          time without changes before the schema is reloaded
+     */
+    public ReloadableGraphQL(GraphQL graphQL
+            , SchemaStringProvider schemaStringProvider
+            , Function<Map<String, String>, GraphQLSchema> schemaFactory
+            , Duration quietPeriod) {
+        this.schemaStringProvider = schemaStringProvider;
+        this.schemaFactory = schemaFactory;
+        this.quietPeriod = quietPeriod;
+
+        PreparsedDocumentProvider provider = graphQL.getPreparsedDocumentProvider();
+        if (provider instanceof SchemaBoundDocumentProvider) {
+            this.documentProvider = (SchemaBoundDocumentProvider) provider;
+            this.graphQL = graphQL;
+        } else {
+            this.documentProvider = new SchemaBoundDocumentProvider(provider, graphQL.getGraphQLSchema());
+            this.graphQL = graphQL.transform(builder -> builder.preparsedDocumentProvider(documentProvider));
+        }
+    }
+
+
+    /**
+     * @return the instance of the current schema
+     */
+    @Override
+    public GraphQL get() {
+        return graphQL;
+    }
+
+    public GraphQLSchema getSchema() {
+        return graphQL.getGraphQLSchema();
+    }
+
+    /**
+     * @param listener is called on the reload thread with every new instance
+     */
+    public void addListener(Consumer<GraphQL> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remembers the current sources and starts watching the schema locations.
+     */
+    public void start() throws IOException {
+        sources = schemaStringProvider.schemaSources();
+
+        Collection<Path> locations = schemaStringProvider.schemaLocations();
+        if (locations.isEmpty()) {
+            log.warn("GraphQL schema has no locations in the file system, it is not watched.");
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path location : locations) {
+            location.register(watchService
+                    , StandardWatchEventKinds.ENTRY_CREATE
+                    , StandardWatchEventKinds.ENTRY_MODIFY
+                    , StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        watcher = new Thread(this::watch, "graphql-schema-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        log.info("GraphQL schema locations {} are watched.", locations);
+    }
+
+    /**
+     * Reloads the schema in the background.
+     *
+     * @return the new instance, or the current one if the sources are not changed
+     */
+    public CompletableFuture<GraphQL> reload() {
+        CompletableFuture<GraphQL> result = CompletableFuture.supplyAsync(this::reloadSchema, executor);
+
+        result.whenComplete((reloaded, e) -> {
+            if (null != e) {
+                log.error("GraphQL schema cannot be reloaded, the current schema is kept.", e);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null != watchService) {
+            watchService.close();
+            watcher.interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+
+    private GraphQL reloadSchema() {
+        Map<String, String> changed;
+        try {
+            changed = schemaStringProvider.schemaSources();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (changed.equals(sources)) {
+            return graphQL;
+        }
+
+        long start = System.nanoTime();
+
+        GraphQLSchema schema = schemaFactory.apply(changed);
+        SchemaBoundDocumentProvider provider = documentProvider.forSchema(schema);
+        GraphQL reloaded = graphQL.transform(builder -> builder.schema(schema).preparsedDocumentProvider(provider));
+
+        graphQL = reloaded;
+        sources = changed;
+
+        if (documentProvider.getDelegate() instanceof RefreshableDocumentProvider) {
+            ((RefreshableDocumentProvider) documentProvider.getDelegate())
+                    .refresh(SchemaBoundDocumentProvider.revalidation(schema));
+        }
+
+        listeners.forEach(listener -> listener.accept(reloaded));
+
+        log.info("GraphQL schema {} is reloaded in {} ms.", changed.keySet()
+                , TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        return reloaded;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                drain(watchService.take());
+
+                // an editor or a build changes several files at once
+                WatchKey key;
+                while (null != (key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS))) {
+                    drain(key);
+                }
+
+                try {
+                    reload().get();
+                } catch (ExecutionException e) {
+                    // logged by the reload
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("GraphQL schema locations are not watched anymore.");
+        }
+    }
+
+    private static void drain(WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ReloadableGraphQL.class.getSimpleName() + "[", "]")
+                .add("schemaStringProvider=" + schemaStringProvider)
+                .add("quietPeriod=" + quietPeriod)
+                .toString();
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
+import org.babich.graphql.analysis.AnalyzedDocumentEntry;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Provider of preparsed documents of one schema of a {@link ReloadableGraphQL}.
+ * <p>The entries computed by the provider remember the schema they are validated against. A cached entry of
+ * another schema, e.g. cached by a request that has started before the schema is reloaded, is validated again
+ * for the request and is not cached. A document parsed with errors of another schema is parsed again.</p>
+ */
+public class SchemaBoundDocumentProvider implements PreparsedDocumentProvider {
+
+    private final PreparsedDocumentProvider delegate;
+
+    private final GraphQLSchema schema;
+
+
+    public SchemaBoundDocumentProvider(PreparsedDocumentProvider delegate, GraphQLSchema schema) {
+        this.delegate = delegate;
+        this.schema = schema;
+    }
+
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput
+            , Function<ExecutionInput, PreparsedDocumentEntry> computeFunction) {
+
+        PreparsedDocumentEntry entry = delegate.getDocument(executionInput
+                , computeFunction.andThen(computed -> bind(computed, schema)));
+
+        if (isBound(entry, schema)) {
+            return entry;
+        }
+
+        PreparsedDocumentEntry validated = revalidation(schema).apply(entry);
+
+        return AnalyzedDocumentEntry.publish(executionInput, null != validated ? validated
+                : bind(computeFunction.apply(executionInput), schema));
+    }
+
+    /**
+     * @return provider of the same delegate for another schema
+     */
+    public SchemaBoundDocumentProvider forSchema(GraphQLSchema schema) {
+        return new SchemaBoundDocumentProvider(delegate, schema);
+    }
+
+    public PreparsedDocumentProvider getDelegate() {
+        return delegate;
+    }
+
+    public GraphQLSchema getSchema() {
+        return schema;
+    }
+
+
+    /**
+     * Function of {@link org.babich.graphql.RefreshableDocumentProvider#refresh} that keeps the documents still
+     * valid against the schema and drops the others. The entries with errors are dropped, they might be valid
+     * now. A kept document gets a new analysis, its cost might be changed by the schema.
+     *
+     * @param schema the new schema
+     */
+    public static UnaryOperator<PreparsedDocumentEntry> revalidation(GraphQLSchema schema) {
+        return entry -> {
+            if (entry.hasErrors()) {
+                return null;
+            }
+            if (isBound(entry, schema)) {
+                return entry;
+            }
+
+            List<ValidationError> errors = new Validator().validateDocument(schema, entry.getDocument());
+
+            return errors.isEmpty() ? new DocumentEntry(entry, schema) : null;
+        };
+    }
+
+    static boolean isBound(PreparsedDocumentEntry entry, GraphQLSchema schema) {
+        if (entry instanceof DocumentEntry) {
+            return ((DocumentEntry) entry).schema == schema;
+        }
+        return entry instanceof ErrorsEntry && ((ErrorsEntry) entry).schema == schema;
+    }
+
+    private static PreparsedDocumentEntry bind(PreparsedDocumentEntry entry, GraphQLSchema schema) {
+        if (null == entry) {
+            return null;
+        }
+        return entry.hasErrors() ? new ErrorsEntry(entry.getErrors(), schema) : new DocumentEntry(entry, schema);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SchemaBoundDocumentProvider.class.getSimpleName() + "[", "]")
+                .add("delegate=" + delegate)
+                .toString();
+    }
+
+
+    /**
+     * Valid document of the schema, the schema is not serialized with the document.
+     */
+    private static class DocumentEntry extends AnalyzedDocumentEntry {
+
+        private final transient GraphQLSchema schema;
+
+        DocumentEntry(PreparsedDocumentEntry entry, GraphQLSchema schema) {
+            super(entry);
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * Parsing or validation errors of the schema, the schema is not serialized with the errors.
+     */
+    private static class ErrorsEntry extends PreparsedDocumentEntry {
+
+        private final transient GraphQLSchema schema;
+
+        ErrorsEntry(List<? extends GraphQLError> errors, GraphQLSchema schema) {
+            super(errors);
+            this.schema = schema;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.language.Directive;
+import graphql.language.DirectiveDefinition;
+import graphql.language.DirectiveLocation;
+import graphql.language.EnumTypeDefinition;
+import graphql.language.EnumValueDefinition;
+import graphql.language.FieldDefinition;
+import graphql.language.ImplementingTypeDefinition;
+import graphql.language.InputValueDefinition;
+import graphql.language.IntValue;
+import graphql.language.ListType;
+import graphql.language.NonNullType;
+import graphql.language.ObjectTypeDefinition;
+import graphql.language.StringValue;
+import graphql.language.Type;
+import graphql.language.TypeDefinition;
+import graphql.language.TypeName;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+
+/**
+ * Expansion of the schema by the uses of a directive, e.g. the types generated for a {@code @connection} field.
+ * <p>{@link DirectiveExtensionSchemaParser} visits every object and interface type and their fields once, an expander
+ * is called for every use of its directive and is completed once after all the definitions are visited if the
+ * directive is used. The expanders define the generated types and directives through the {@link Context},
+ * a type or a directive defined by the schema is never replaced.</p>
+ */
+@SuppressWarnings("rawtypes")
+public interface SchemaDirectiveExpander {
+
+    /**
+     * @return name of the directive the expander is called for
+     */
+    String getDirectiveName();
+
+    /**
+     * Version of the expansion, a part of the name of the {@link SchemaSnapshot}, so a snapshot expanded by another
+     * version is not reused. It is the implementation version of the package of the expander by default,
+     * an expander whose output is changed without a new version of its jar should override it.
+     */
+    default String getVersion() {
+        Package expanderPackage = getClass().getPackage();
+        String version = null == expanderPackage ? null : expanderPackage.getImplementationVersion();
+        return null == version ? "" : version;
+    }
+
+    /**
+     * Called for every use of the directive on an object or an interface type, extensions included.
+     */
+    default void expandType(ImplementingTypeDefinition<?> type, Directive directive, Context context) {
+    }
+
+    /**
+     * Called for every use of the directive on a field of an object or an interface type, extensions included.
+     */
+    default void expandField(ImplementingTypeDefinition<?> type
+            , FieldDefinition field
+            , Directive directive
+            , Context context) {
+    }
+
+    /**
+     * Called once after all the definitions are visited if the directive is used.
+     */
+    default void complete(Context context) {
+    }
+
+
+    /**
+     * Definitions generated by the expanders.
+     */
+    interface Context {
+
+        /**
+         * Defines the type unless the schema or another expander defines a type of the same name,
+         * the definition is created once.
+         */
+        void defineType(String name, Supplier<? extends TypeDefinition> definition);
+
+        /**
+         * Defines the directive unless the schema or another expander declares it, the definition is created once.
+         */
+        void defineDirective(String name, Supplier<DirectiveDefinition> definition);
+    }
+
+
+    /**
+     * The directive '@connection' generates the types of the Relay cursor connection of the field type:
+     * <pre>
+     *      type PageInfo {
+     *                 hasPreviousPage: Boolean!
+     *                 hasNextPage: Boolean!
+     *                 startCursor: String
+     *                 endCursor: String
+     *             }
+     *
+     *      type {TypeName}Connection {
+     *                 edges: [{TypeName}ConnectionEdge]
+     *                 pageInfo: PageInfo
+     *             }
+     *
+     *      type {TypeName}ConnectionEdge {
+     *                 cursor: String
+     *                 node: {for}
+     *             }
+     * </pre>
+     * The {@code PageInfo} type is shared by all the connections, its cursors are {@code null} on an empty page.
+     * See {@link org.babich.graphql.connection.KeysetConnectionFetcher} for the fetcher of the field.
+     */
+    class Connection implements SchemaDirectiveExpander {
+
+        public static final String name = "connection";
+
+        public static final String pageInfoType = "PageInfo";
+
+        static final String edgeSuffix = "Edge";
+
+        @Override
+        public String getDirectiveName() {
+            return name;
+        }
+
+        @Override
+        public void expandField(ImplementingTypeDefinition<?> type
+                , FieldDefinition field
+                , Directive directive
+                , Context context) {
+
+            String connectionType = typeName(field.getType());
+            String nodeType = forTypeName(directive);
+
+            context.defineType(connectionType, () -> createConnectionDefinition(connectionType));
+            context.defineType(connectionType + edgeSuffix, () -> createEdgeDefinition(connectionType, nodeType));
+            context.defineType(pageInfoType, Connection::createPageInfo);
+        }
+
+        static String typeName(Type<?> type) {
+            if (type instanceof NonNullType) {
+                return ((TypeName) ((NonNullType) type).getType()).getName();
+            }
+            return ((TypeName) type).getName();
+        }
+
+        static private String forTypeName(Directive directive) {
+            graphql.language.Value<?> value = directive.getArgument("for").getValue();
+            if (value instanceof StringValue) {
+                return ((StringValue) value).getValue();
+            }
+
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass());
+        }
+
+        static private ObjectTypeDefinition createConnectionDefinition(String type) {
+            FieldDefinition edgesDefinition =
+                    new FieldDefinition("edges", new ListType(new TypeName(type + edgeSuffix)));
+
+            FieldDefinition pageInfoDefinition =
+                    new FieldDefinition("pageInfo", new TypeName(pageInfoType));
+
+            return ObjectTypeDefinition.newObjectTypeDefinition()
+                    .name(type)
+                    .fieldDefinition(edgesDefinition)
+                    .fieldDefinition(pageInfoDefinition)
+                    .build();
+        }
+
+        static private ObjectTypeDefinition createEdgeDefinition(String connectionType, String nodeType) {
+            FieldDefinition cursorDefinition = new FieldDefinition("cursor", new TypeName("String"));
+            FieldDefinition nodeDefinition = new FieldDefinition("node", new TypeName(nodeType));
+
+            return ObjectTypeDefinition.newObjectTypeDefinition()
+                    .name(connectionType + edgeSuffix)
+                    .fieldDefinition(cursorDefinition)
+                    .fieldDefinition(nodeDefinition)
+                    .build();
+        }
+
+        static private ObjectTypeDefinition createPageInfo() {
+            FieldDefinition hasPreviousPageDefinition =
+                    new FieldDefinition("hasPreviousPage", new NonNullType(new TypeName("Boolean")));
+
+            FieldDefinition hasNextPageDefinition =
+                    new FieldDefinition("hasNextPage", new NonNullType(new TypeName("Boolean")));
+
+            FieldDefinition startCursorDefinition = new FieldDefinition("startCursor", new TypeName("String"));
+            FieldDefinition endCursorDefinition = new FieldDefinition("endCursor", new TypeName("String"));
+
+            return ObjectTypeDefinition.newObjectTypeDefinition()
+                    .name(pageInfoType)
+                    .fieldDefinition(hasPreviousPageDefinition)
+                    .fieldDefinition(hasNextPageDefinition)
+                    .fieldDefinition(startCursorDefinition)
+                    .fieldDefinition(endCursorDefinition)
+                    .build();
+        }
+    }
+
+    /**
+     * The directive '@cost' is declared as below unless the schema declares it:
+     * <pre>
+     *     directive @cost(weight: Int = 1, multipliers: [String!]) on FIELD_DEFINITION
+     * </pre>
+     * see {@link org.babich.graphql.analysis.CostFieldComplexityCalculator}.
+     */
+    class Cost implements SchemaDirectiveExpander {
+
+        public static final String name = "cost";
+
+        @Override
+        public String getDirectiveName() {
+            return name;
+        }
+
+        @Override
+        public void complete(Context context) {
+            context.defineDirective(name, Cost::createDefinition);
+        }
+
+        static private DirectiveDefinition createDefinition() {
+            InputValueDefinition weightDefinition = InputValueDefinition.newInputValueDefinition()
+                    .name("weight")
+                    .type(new TypeName("Int"))
+                    .defaultValue(new IntValue(BigInteger.ONE))
+                    .build();
+
+            InputValueDefinition multipliersDefinition = InputValueDefinition.newInputValueDefinition()
+                    .name("multipliers")
+                    .type(new ListType(new NonNullType(new TypeName("String"))))
+                    .build();
+
+            return DirectiveDefinition.newDirectiveDefinition()
+                    .name(name)
+                    .inputValueDefinition(weightDefinition)
+                    .inputValueDefinition(multipliersDefinition)
+                    .directiveLocation(DirectiveLocation.newDirectiveLocation().name("FIELD_DEFINITION").build())
+                    .build();
+        }
+    }
+
+    /**
+     * The directive '@cacheControl' is declared as below unless the schema declares it:
+     * <pre>
+     *     enum CacheControlScope { PUBLIC PRIVATE }
+     *
+     *     directive @cacheControl(maxAge: Int, scope: CacheControlScope) on FIELD_DEFINITION | OBJECT | INTERFACE
+     * </pre>
+     * see {@link org.babich.graphql.instrumentation.CacheControlInstrumentation}.
+     */
+    class CacheControl implements SchemaDirectiveExpander {
+
+        public static final String name = "cacheControl";
+
+        public static final String scopeType = "CacheControlScope";
+
+        @Override
+        public String getDirectiveName() {
+            return name;
+        }
+
+        @Override
+        public void complete(Context context) {
+            context.defineType(scopeType, CacheControl::createScopeDefinition);
+            context.defineDirective(name, CacheControl::createDefinition);
+        }
+
+        static private EnumTypeDefinition createScopeDefinition() {
+            return EnumTypeDefinition.newEnumTypeDefinition()
+                    .name(scopeType)
+                    .enumValueDefinition(new EnumValueDefinition("PUBLIC"))
+                    .enumValueDefinition(new EnumValueDefinition("PRIVATE"))
+                    .build();
+        }
+
+        static private DirectiveDefinition createDefinition() {
+            InputValueDefinition maxAgeDefinition = InputValueDefinition.newInputValueDefinition()
+                    .name("maxAge")
+                    .type(new TypeName("Int"))
+                    .build();
+
+            InputValueDefinition scopeDefinition = InputValueDefinition.newInputValueDefinition()
+                    .name("scope")
+                    .type(new TypeName(scopeType))
+                    .build();
+
+            return DirectiveDefinition.newDirectiveDefinition()
+                    .name(name)
+                    .inputValueDefinition(maxAgeDefinition)
+                    .inputValueDefinition(scopeDefinition)
+                    .directiveLocation(DirectiveLocation.newDirectiveLocation().name("FIELD_DEFINITION").build())
+                    .directiveLocation(DirectiveLocation.newDirectiveLocation().name("OBJECT").build())
+                    .directiveLocation(DirectiveLocation.newDirectiveLocation().name("INTERFACE").build())
+                    .build();
+        }
+    }
+}
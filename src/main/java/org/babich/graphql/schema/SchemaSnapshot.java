@@ -0,0 +1,166 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Snapshot of the parsed and {@code @connection} expanded {@link TypeDefinitionRegistry} in the file system.
+ * <p>The snapshot file is named by the SHA-256 of the schema sources, the graphql-java version, the version of
+ * this library, the version of the parsing and the snapshot format, so a changed schema or a library upgrade never
+ * reuses a stale snapshot. Only the SDL of the sources in sorted order is hashed, the source names are the paths
+ * of the machine and the order of the classpath, so a snapshot written at build time is matched at runtime
+ * wherever the application is installed.
+ * A matched file is memory-mapped and deserialized instead of parsing, otherwise the sources are parsed and the
+ * registry is written for the next start. The snapshot is the compact binary format of {@link SchemaSnapshotCodec},
+ * it is read straight from the mapped file without the parser.</p>
+ * <p>The executable schema itself is not a part of the snapshot, the runtime wiring is code of the application.</p>
+ */
+public class SchemaSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaSnapshot.class);
+
+    static final String formatVersion = "2";
+    static final String fileSuffix = ".registry";
+
+    private final Path directory;
+
+    private final String version;
+
+    public SchemaSnapshot(Path directory) {
+        this(directory, "");
+    }
+
+    /**
+     * @param version of the parsing, e.g. {@link DirectiveExtensionSchemaParser#getExpandersVersion()},
+     *                a part of the snapshot name
+     */
+    public SchemaSnapshot(Path directory, String version) {
+        this.directory = directory;
+        this.version = version;
+    }
+
+
+    /**
+     * Returns the registry of the snapshot matching the sources or parses the sources and writes a snapshot of them.
+     * A snapshot that cannot be read or written is logged and the sources are parsed as usual.
+     *
+     * @param sources SDL by source name
+     * @param parser  parsing of the sources when there is no matched snapshot
+     * @return registry of the sources
+     */
+    public TypeDefinitionRegistry load(Map<String, String> sources
+            , Function<Map<String, String>, TypeDefinitionRegistry> parser) {
+
+        Path file = snapshotFile(sources);
+
+        if (Files.isRegularFile(file)) {
+            try {
+                TypeDefinitionRegistry registry = read(file);
+                log.info("GraphQL schema is loaded from the snapshot {}.", file);
+                return registry;
+            } catch (IOException e) {
+                log.warn("GraphQL schema snapshot {} cannot be read, the schema is parsed.", file, e);
+            }
+        }
+
+        TypeDefinitionRegistry registry = parser.apply(sources);
+
+        try {
+            write(file, registry);
+            log.info("GraphQL schema snapshot {} is written.", file);
+        } catch (IOException e) {
+            log.warn("GraphQL schema snapshot {} cannot be written.", file, e);
+        }
+
+        return registry;
+    }
+
+    /**
+     * @return path of the snapshot of the sources, the file might not exist
+     */
+    public Path snapshotFile(Map<String, String> sources) {
+        return directory.resolve("schema-" + hash(version, sources) + fileSuffix);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+
+    static String hash(String version, Map<String, String> sources) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, formatVersion);
+        update(digest, String.valueOf(TypeDefinitionRegistry.class.getPackage().getImplementationVersion()));
+        update(digest, String.valueOf(SchemaSnapshot.class.getPackage().getImplementationVersion()));
+        update(digest, version);
+        sources.values().stream().sorted().forEach(sdl -> update(digest, sdl));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    static TypeDefinitionRegistry read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return SchemaSnapshotCodec.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static void write(Path file, TypeDefinitionRegistry registry) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                SchemaSnapshotCodec.write(registry, output);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SchemaSnapshot.class.getSimpleName() + "[", "]")
+                .add("directory=" + directory)
+                .add("version='" + version + "'")
+                .toString();
+    }
+
+}
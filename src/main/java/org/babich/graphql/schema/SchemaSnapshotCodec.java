@@ -0,0 +1,712 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.language.*;
+import graphql.schema.idl.ScalarInfo;
+import graphql.schema.idl.TypeDefinitionRegistry;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Binary format of the SDL definitions of a {@link TypeDefinitionRegistry}.
+ * <p>Every string is written once, the next occurrences refer to the first one, the numbers are varints.
+ * The source locations, comments and descriptions are kept, so the schema errors and the descriptions
+ * are the same as of the parsed schema. A definition of an unknown node class fails the writing.</p>
+ */
+@SuppressWarnings("rawtypes")
+final class SchemaSnapshotCodec {
+
+    static final int magic = 0x47514c52;
+
+    private static final int objectType = 1;
+    private static final int objectTypeExtension = 2;
+    private static final int interfaceType = 3;
+    private static final int interfaceTypeExtension = 4;
+    private static final int unionType = 5;
+    private static final int unionTypeExtension = 6;
+    private static final int enumType = 7;
+    private static final int enumTypeExtension = 8;
+    private static final int scalarType = 9;
+    private static final int scalarTypeExtension = 10;
+    private static final int inputObjectType = 11;
+    private static final int inputObjectTypeExtension = 12;
+    private static final int directiveDefinition = 13;
+    private static final int schemaDefinition = 14;
+    private static final int schemaExtension = 15;
+
+    private static final int typeName = 1;
+    private static final int listType = 2;
+    private static final int nonNullType = 3;
+
+    private static final int noValue = 0;
+    private static final int intValue = 1;
+    private static final int floatValue = 2;
+    private static final int stringValue = 3;
+    private static final int booleanValue = 4;
+    private static final int nullValue = 5;
+    private static final int enumValue = 6;
+    private static final int arrayValue = 7;
+    private static final int objectValue = 8;
+    private static final int variableReference = 9;
+
+    private SchemaSnapshotCodec() {
+    }
+
+
+    static void write(TypeDefinitionRegistry registry, OutputStream outputStream) throws IOException {
+        List<SDLDefinition> definitions = definitionsOf(registry);
+
+        Writer writer = new Writer(new DataOutputStream(outputStream));
+        writer.out.writeInt(magic);
+        writer.number(definitions.size());
+        for (SDLDefinition definition : definitions) {
+            writer.definition(definition);
+        }
+        writer.out.flush();
+    }
+
+    static TypeDefinitionRegistry read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != magic) {
+            throw new IOException("Not a schema snapshot");
+        }
+
+        Reader reader = new Reader(buffer);
+        TypeDefinitionRegistry registry = new TypeDefinitionRegistry();
+        try {
+            for (int i = reader.number(); i > 0; i--) {
+                Optional<?> error = registry.add(reader.definition());
+                if (error.isPresent()) {
+                    throw new IOException("Schema snapshot is inconsistent: " + error.get());
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Schema snapshot is corrupted", e);
+        }
+        return registry;
+    }
+
+    private static List<SDLDefinition> definitionsOf(TypeDefinitionRegistry registry) {
+        List<SDLDefinition> definitions = new ArrayList<>();
+
+        registry.schemaDefinition().ifPresent(definitions::add);
+        definitions.addAll(registry.getSchemaExtensionDefinitions());
+        definitions.addAll(registry.getDirectiveDefinitions().values());
+        definitions.addAll(registry.types().values());
+        registry.scalars().values().stream()
+                .filter(scalar -> !ScalarInfo.isGraphqlSpecifiedScalar(scalar.getName()))
+                .forEach(definitions::add);
+
+        addAll(definitions, registry.objectTypeExtensions().values());
+        addAll(definitions, registry.interfaceTypeExtensions().values());
+        addAll(definitions, registry.unionTypeExtensions().values());
+        addAll(definitions, registry.enumTypeExtensions().values());
+        addAll(definitions, registry.scalarTypeExtensions().values());
+        addAll(definitions, registry.inputObjectTypeExtensions().values());
+
+        return definitions;
+    }
+
+    private static void addAll(List<SDLDefinition> definitions, Collection<? extends List<? extends SDLDefinition>> lists) {
+        lists.forEach(definitions::addAll);
+    }
+
+
+    private static class Writer {
+
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void number(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        /**
+         * 0 is null, 1 is followed by a new string, otherwise the index of a written string plus 2.
+         */
+        void string(String value) throws IOException {
+            if (null == value) {
+                number(0);
+                return;
+            }
+
+            Integer index = strings.get(value);
+            if (null != index) {
+                number(index + 2);
+                return;
+            }
+
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            number(1);
+            number(bytes.length);
+            out.write(bytes);
+        }
+
+        void location(SourceLocation location) throws IOException {
+            if (null == location) {
+                number(0);
+                return;
+            }
+            number(location.getLine() + 2);
+            number(location.getColumn() + 2);
+            string(location.getSourceName());
+        }
+
+        void header(Node<?> node) throws IOException {
+            location(node.getSourceLocation());
+
+            List<Comment> comments = node.getComments();
+            number(comments.size());
+            for (Comment comment : comments) {
+                string(comment.getContent());
+                location(comment.getSourceLocation());
+            }
+        }
+
+        void description(Description description) throws IOException {
+            if (null == description) {
+                number(0);
+                return;
+            }
+            number(description.isMultiLine() ? 2 : 1);
+            string(description.getContent());
+            location(description.getSourceLocation());
+        }
+
+        void definition(SDLDefinition definition) throws IOException {
+            Class<?> type = definition.getClass();
+
+            if (type == ObjectTypeDefinition.class || type == ObjectTypeExtensionDefinition.class) {
+                ObjectTypeDefinition object = (ObjectTypeDefinition) definition;
+                number(type == ObjectTypeDefinition.class ? objectType : objectTypeExtension);
+                described(object, object.getName(), object.getDescription(), object.getDirectives());
+                types(object.getImplements());
+                fields(object.getFieldDefinitions());
+
+            } else if (type == InterfaceTypeDefinition.class || type == InterfaceTypeExtensionDefinition.class) {
+                InterfaceTypeDefinition anInterface = (InterfaceTypeDefinition) definition;
+                number(type == InterfaceTypeDefinition.class ? interfaceType : interfaceTypeExtension);
+                described(anInterface, anInterface.getName(), anInterface.getDescription(), anInterface.getDirectives());
+                types(anInterface.getImplements());
+                fields(anInterface.getFieldDefinitions());
+
+            } else if (type == UnionTypeDefinition.class || type == UnionTypeExtensionDefinition.class) {
+                UnionTypeDefinition union = (UnionTypeDefinition) definition;
+                number(type == UnionTypeDefinition.class ? unionType : unionTypeExtension);
+                described(union, union.getName(), union.getDescription(), union.getDirectives());
+                types(union.getMemberTypes());
+
+            } else if (type == EnumTypeDefinition.class || type == EnumTypeExtensionDefinition.class) {
+                EnumTypeDefinition anEnum = (EnumTypeDefinition) definition;
+                number(type == EnumTypeDefinition.class ? enumType : enumTypeExtension);
+                described(anEnum, anEnum.getName(), anEnum.getDescription(), anEnum.getDirectives());
+                number(anEnum.getEnumValueDefinitions().size());
+                for (EnumValueDefinition value : anEnum.getEnumValueDefinitions()) {
+                    described(value, value.getName(), value.getDescription(), value.getDirectives());
+                }
+
+            } else if (type == ScalarTypeDefinition.class || type == ScalarTypeExtensionDefinition.class) {
+                ScalarTypeDefinition scalar = (ScalarTypeDefinition) definition;
+                number(type == ScalarTypeDefinition.class ? scalarType : scalarTypeExtension);
+                described(scalar, scalar.getName(), scalar.getDescription(), scalar.getDirectives());
+
+            } else if (type == InputObjectTypeDefinition.class || type == InputObjectTypeExtensionDefinition.class) {
+                InputObjectTypeDefinition input = (InputObjectTypeDefinition) definition;
+                number(type == InputObjectTypeDefinition.class ? inputObjectType : inputObjectTypeExtension);
+                described(input, input.getName(), input.getDescription(), input.getDirectives());
+                inputValues(input.getInputValueDefinitions());
+
+            } else if (type == DirectiveDefinition.class) {
+                DirectiveDefinition directive = (DirectiveDefinition) definition;
+                number(directiveDefinition);
+                described(directive, directive.getName(), directive.getDescription(), Collections.emptyList());
+                number(directive.isRepeatable() ? 1 : 0);
+                inputValues(directive.getInputValueDefinitions());
+                number(directive.getDirectiveLocations().size());
+                for (DirectiveLocation location : directive.getDirectiveLocations()) {
+                    location(location.getSourceLocation());
+                    string(location.getName());
+                }
+
+            } else if (type == SchemaDefinition.class || type == SchemaExtensionDefinition.class) {
+                SchemaDefinition schema = (SchemaDefinition) definition;
+                number(type == SchemaDefinition.class ? schemaDefinition : schemaExtension);
+                described(schema, null, schema.getDescription(), schema.getDirectives());
+                number(schema.getOperationTypeDefinitions().size());
+                for (OperationTypeDefinition operation : schema.getOperationTypeDefinitions()) {
+                    location(operation.getSourceLocation());
+                    string(operation.getName());
+                    type(operation.getTypeName());
+                }
+
+            } else {
+                throw new IOException("Definition " + type.getName() + " is not supported by the schema snapshot");
+            }
+        }
+
+        void described(Node node, String name, Description description, List<Directive> directives) throws IOException {
+            header(node);
+            string(name);
+            description(description);
+            directives(directives);
+        }
+
+        void fields(List<FieldDefinition> fields) throws IOException {
+            number(fields.size());
+            for (FieldDefinition field : fields) {
+                described(field, field.getName(), field.getDescription(), field.getDirectives());
+                type(field.getType());
+                inputValues(field.getInputValueDefinitions());
+            }
+        }
+
+        void inputValues(List<InputValueDefinition> inputValues) throws IOException {
+            number(inputValues.size());
+            for (InputValueDefinition inputValue : inputValues) {
+                described(inputValue, inputValue.getName(), inputValue.getDescription(), inputValue.getDirectives());
+                type(inputValue.getType());
+                value(inputValue.getDefaultValue());
+            }
+        }
+
+        void directives(List<Directive> directives) throws IOException {
+            number(directives.size());
+            for (Directive directive : directives) {
+                location(directive.getSourceLocation());
+                string(directive.getName());
+                number(directive.getArguments().size());
+                for (Argument argument : directive.getArguments()) {
+                    location(argument.getSourceLocation());
+                    string(argument.getName());
+                    value(argument.getValue());
+                }
+            }
+        }
+
+        void types(List<Type> types) throws IOException {
+            number(types.size());
+            for (Type type : types) {
+                type(type);
+            }
+        }
+
+        void type(Type type) throws IOException {
+            if (type instanceof TypeName) {
+                number(typeName);
+                location(type.getSourceLocation());
+                string(((TypeName) type).getName());
+            } else if (type instanceof ListType) {
+                number(listType);
+                location(type.getSourceLocation());
+                type(((ListType) type).getType());
+            } else if (type instanceof NonNullType) {
+                number(nonNullType);
+                location(type.getSourceLocation());
+                type(((NonNullType) type).getType());
+            } else {
+                throw new IOException("Type " + type + " is not supported by the schema snapshot");
+            }
+        }
+
+        void value(Value value) throws IOException {
+            if (null == value) {
+                number(noValue);
+            } else if (value instanceof IntValue) {
+                number(intValue);
+                location(value.getSourceLocation());
+                string(((IntValue) value).getValue().toString());
+            } else if (value instanceof FloatValue) {
+                number(floatValue);
+                location(value.getSourceLocation());
+                string(((FloatValue) value).getValue().toString());
+            } else if (value instanceof StringValue) {
+                number(stringValue);
+                location(value.getSourceLocation());
+                string(((StringValue) value).getValue());
+            } else if (value instanceof BooleanValue) {
+                number(booleanValue);
+                location(value.getSourceLocation());
+                number(((BooleanValue) value).isValue() ? 1 : 0);
+            } else if (value instanceof NullValue) {
+                number(nullValue);
+                location(value.getSourceLocation());
+            } else if (value instanceof EnumValue) {
+                number(enumValue);
+                location(value.getSourceLocation());
+                string(((EnumValue) value).getName());
+            } else if (value instanceof ArrayValue) {
+                number(arrayValue);
+                location(value.getSourceLocation());
+                List<Value> values = ((ArrayValue) value).getValues();
+                number(values.size());
+                for (Value item : values) {
+                    value(item);
+                }
+            } else if (value instanceof ObjectValue) {
+                number(objectValue);
+                location(value.getSourceLocation());
+                List<ObjectField> fields = ((ObjectValue) value).getObjectFields();
+                number(fields.size());
+                for (ObjectField field : fields) {
+                    location(field.getSourceLocation());
+                    string(field.getName());
+                    value(field.getValue());
+                }
+            } else if (value instanceof VariableReference) {
+                number(variableReference);
+                location(value.getSourceLocation());
+                string(((VariableReference) value).getName());
+            } else {
+                throw new IOException("Value " + value + " is not supported by the schema snapshot");
+            }
+        }
+    }
+
+
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int number() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String string() {
+            int reference = number();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > 1) {
+                return strings.get(reference - 2);
+            }
+
+            byte[] bytes = new byte[number()];
+            buffer.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        SourceLocation location() {
+            int line = number();
+            if (line == 0) {
+                return null;
+            }
+            int column = number();
+            return new SourceLocation(line - 2, column - 2, string());
+        }
+
+        List<Comment> comments() {
+            int size = number();
+            if (size == 0) {
+                return Collections.emptyList();
+            }
+            List<Comment> comments = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String content = string();
+                comments.add(new Comment(content, location()));
+            }
+            return comments;
+        }
+
+        Description description() {
+            int kind = number();
+            if (kind == 0) {
+                return null;
+            }
+            String content = string();
+            return new Description(content, location(), kind == 2);
+        }
+
+        Described described() {
+            return new Described(location(), comments(), string(), description(), directives());
+        }
+
+        SDLDefinition definition() throws IOException {
+            int kind = number();
+            Described d = described();
+
+            switch (kind) {
+                case objectType:
+                    return ObjectTypeDefinition.newObjectTypeDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).implementz(types()).fieldDefinitions(fields()).build();
+                case objectTypeExtension:
+                    return ObjectTypeExtensionDefinition.newObjectTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).implementz(types()).fieldDefinitions(fields()).build();
+                case interfaceType:
+                    return InterfaceTypeDefinition.newInterfaceTypeDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).implementz(types()).definitions(fields()).build();
+                case interfaceTypeExtension:
+                    return InterfaceTypeExtensionDefinition.newInterfaceTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).implementz(types()).definitions(fields()).build();
+                case unionType:
+                    return UnionTypeDefinition.newUnionTypeDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).memberTypes(types()).build();
+                case unionTypeExtension:
+                    return UnionTypeExtensionDefinition.newUnionTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).memberTypes(types()).build();
+                case enumType:
+                    return EnumTypeDefinition.newEnumTypeDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).enumValueDefinitions(enumValues()).build();
+                case enumTypeExtension:
+                    return EnumTypeExtensionDefinition.newEnumTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).enumValueDefinitions(enumValues()).build();
+                case scalarType:
+                    return ScalarTypeDefinition.newScalarTypeDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).build();
+                case scalarTypeExtension:
+                    return ScalarTypeExtensionDefinition.newScalarTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).build();
+                case inputObjectType:
+                    return InputObjectTypeDefinition.newInputObjectDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).inputValueDefinitions(inputValues()).build();
+                case inputObjectTypeExtension:
+                    return InputObjectTypeExtensionDefinition.newInputObjectTypeExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .directives(d.directives).inputValueDefinitions(inputValues()).build();
+                case directiveDefinition:
+                    return DirectiveDefinition.newDirectiveDefinition()
+                            .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                            .repeatable(number() == 1).inputValueDefinitions(inputValues())
+                            .directiveLocations(directiveLocations()).build();
+                case schemaDefinition:
+                    return SchemaDefinition.newSchemaDefinition()
+                            .sourceLocation(d.location).comments(d.comments).description(d.description)
+                            .directives(d.directives).operationTypeDefinitions(operationTypes()).build();
+                case schemaExtension:
+                    return SchemaExtensionDefinition.newSchemaExtensionDefinition()
+                            .sourceLocation(d.location).comments(d.comments)
+                            .directives(d.directives).operationTypeDefinitions(operationTypes()).build();
+                default:
+                    throw new IOException("Unknown definition " + kind + " in the schema snapshot");
+            }
+        }
+
+        List<FieldDefinition> fields() throws IOException {
+            int size = number();
+            List<FieldDefinition> fields = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Described d = described();
+                fields.add(FieldDefinition.newFieldDefinition()
+                        .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                        .directives(d.directives).type(type()).inputValueDefinitions(inputValues()).build());
+            }
+            return fields;
+        }
+
+        List<InputValueDefinition> inputValues() throws IOException {
+            int size = number();
+            List<InputValueDefinition> inputValues = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Described d = described();
+                inputValues.add(InputValueDefinition.newInputValueDefinition()
+                        .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                        .directives(d.directives).type(type()).defaultValue(value()).build());
+            }
+            return inputValues;
+        }
+
+        List<EnumValueDefinition> enumValues() {
+            int size = number();
+            List<EnumValueDefinition> enumValues = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Described d = described();
+                enumValues.add(EnumValueDefinition.newEnumValueDefinition()
+                        .sourceLocation(d.location).comments(d.comments).name(d.name).description(d.description)
+                        .directives(d.directives).build());
+            }
+            return enumValues;
+        }
+
+        List<DirectiveLocation> directiveLocations() {
+            int size = number();
+            List<DirectiveLocation> locations = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                SourceLocation sourceLocation = location();
+                locations.add(DirectiveLocation.newDirectiveLocation()
+                        .sourceLocation(sourceLocation).name(string()).build());
+            }
+            return locations;
+        }
+
+        List<OperationTypeDefinition> operationTypes() throws IOException {
+            int size = number();
+            List<OperationTypeDefinition> operations = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                SourceLocation sourceLocation = location();
+                String operation = string();
+                operations.add(OperationTypeDefinition.newOperationTypeDefinition()
+                        .sourceLocation(sourceLocation).name(operation).typeName((TypeName) type()).build());
+            }
+            return operations;
+        }
+
+        List<Directive> directives() {
+            int size = number();
+            if (size == 0) {
+                return Collections.emptyList();
+            }
+            List<Directive> directives = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                SourceLocation sourceLocation = location();
+                String directive = string();
+                int arguments = number();
+                List<Argument> argumentList = new ArrayList<>(arguments);
+                for (int j = 0; j < arguments; j++) {
+                    SourceLocation argumentLocation = location();
+                    String argument = string();
+                    argumentList.add(Argument.newArgument()
+                            .sourceLocation(argumentLocation).name(argument).value(value()).build());
+                }
+                directives.add(Directive.newDirective()
+                        .sourceLocation(sourceLocation).name(directive).arguments(argumentList).build());
+            }
+            return directives;
+        }
+
+        List<Type> types() throws IOException {
+            int size = number();
+            List<Type> types = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                types.add(type());
+            }
+            return types;
+        }
+
+        Type type() throws IOException {
+            int kind = number();
+            SourceLocation sourceLocation = location();
+
+            switch (kind) {
+                case typeName:
+                    return TypeName.newTypeName(string()).sourceLocation(sourceLocation).build();
+                case listType:
+                    return ListType.newListType(type()).sourceLocation(sourceLocation).build();
+                case nonNullType:
+                    return NonNullType.newNonNullType(type()).sourceLocation(sourceLocation).build();
+                default:
+                    throw new IOException("Unknown type " + kind + " in the schema snapshot");
+            }
+        }
+
+        Value value() {
+            int kind = number();
+            if (kind == noValue) {
+                return null;
+            }
+            SourceLocation sourceLocation = location();
+
+            switch (kind) {
+                case intValue:
+                    return IntValue.newIntValue(new BigInteger(string())).sourceLocation(sourceLocation).build();
+                case floatValue:
+                    return FloatValue.newFloatValue(new BigDecimal(string())).sourceLocation(sourceLocation).build();
+                case stringValue:
+                    return StringValue.newStringValue(string()).sourceLocation(sourceLocation).build();
+                case booleanValue:
+                    return BooleanValue.newBooleanValue(number() == 1).sourceLocation(sourceLocation).build();
+                case nullValue:
+                    return NullValue.newNullValue().sourceLocation(sourceLocation).build();
+                case enumValue:
+                    return EnumValue.newEnumValue(string()).sourceLocation(sourceLocation).build();
+                case arrayValue: {
+                    int size = number();
+                    List<Value> values = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        values.add(value());
+                    }
+                    return ArrayValue.newArrayValue().sourceLocation(sourceLocation).values(values).build();
+                }
+                case objectValue: {
+                    int size = number();
+                    List<ObjectField> fields = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        SourceLocation fieldLocation = location();
+                        String field = string();
+                        fields.add(ObjectField.newObjectField()
+                                .sourceLocation(fieldLocation).name(field).value(value()).build());
+                    }
+                    return ObjectValue.newObjectValue().sourceLocation(sourceLocation).objectFields(fields).build();
+                }
+                case variableReference:
+                    return VariableReference.newVariableReference().name(string()).sourceLocation(sourceLocation).build();
+                default:
+                    throw new IllegalStateException("Unknown value " + kind + " in the schema snapshot");
+            }
+        }
+    }
+
+
+    /**
+     * Fields common to the described nodes.
+     */
+    private static class Described {
+
+        final SourceLocation location;
+        final List<Comment> comments;
+        final String name;
+        final Description description;
+        final List<Directive> directives;
+
+        Described(SourceLocation location
+                , List<Comment> comments
+                , String name
+                , Description description
+                , List<Directive> directives) {
+            this.location = location;
+            this.comments = comments;
+            this.name = name;
+            this.description = description;
+            this.directives = directives;
+        }
+    }
+}
@@ -16,11 +16,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Finding a graphQL schema in the project by file path matcher.
+ * All the matched files are the sources of the schema, they are read in parallel,
+ * the files of the file system by NIO.
  */
 public class SchemaStringProviderByFileMatcher implements SchemaStringProvider {
 
@@ -39,34 +48,62 @@ public class SchemaStringProviderByFileMatcher implements SchemaStringProvider {
 
     @Override
     public String schemaStrings() throws IOException {
+        return String.join("\n", schemaSources().values());
+    }
+
+    @Override
+    public Map<String, String> schemaSources() throws IOException {
 
         Resource[] resources = applicationContext.getResources("classpath*:" + locationPattern);
 
         validate(resources);
 
-        Resource schema = resources[0];
-        log.info("GraphQL schema {} is applied.", schema.getDescription());
+        Map<String, String> sources = Arrays.stream(resources)
+                .parallel()
+                .collect(Collectors.toMap(Resource::getDescription
+                        , SchemaStringProviderByFileMatcher::readSchema
+                        , (first, second) -> first + "\n" + second
+                        , LinkedHashMap::new));
 
-        return readSchema(schema);
+        log.info("GraphQL schema {} is applied.", sources.keySet());
+
+        return sources;
     }
 
+    /**
+     * @return directories of the matched files of the file system, the files in jars are not watched
+     */
+    @Override
+    public Collection<Path> schemaLocations() throws IOException {
 
-    private static String readSchema(Resource resource) {
+        Collection<Path> locations = new LinkedHashSet<>();
 
-        StringWriter writer = new StringWriter();
-        try (InputStream inputStream = resource.getInputStream()) {
-            IOUtils.copy(inputStream, writer, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot read graphql schema from resource " + resource, e);
+        for (Resource resource : applicationContext.getResources("classpath*:" + locationPattern)) {
+            if (resource.isFile()) {
+                locations.add(resource.getFile().toPath().toAbsolutePath().getParent());
+            }
         }
-        return writer.toString();
+
+        return new ArrayList<>(locations);
     }
 
-    private static String prettyPrintResourcesAsList(Resource[] resources) {
 
-        return Arrays.stream(resources)
-                .map(Resource::getDescription)
-                .collect(Collectors.joining(",\n\t", "\t{", "}"));
+    private static String readSchema(Resource resource) {
+
+        try {
+            if (resource.isFile()) {
+                return new String(Files.readAllBytes(resource.getFile().toPath()), StandardCharsets.UTF_8);
+            }
+
+            StringWriter writer = new StringWriter();
+            try (InputStream inputStream = resource.getInputStream()) {
+                IOUtils.copy(inputStream, writer, StandardCharsets.UTF_8);
+            }
+            return writer.toString();
+
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read graphql schema from resource " + resource, e);
+        }
     }
 
     protected void validate(Resource[] resources) {
@@ -77,14 +114,6 @@ public class SchemaStringProviderByFileMatcher implements SchemaStringProvider {
                     + locationPattern
                     + "'.  Please add a graphql schema to the classpath or add a SchemaParser bean to your application context.");
         }
-
-        if (resources.length > 1) {
-
-            log.warn("More then one graphql schema files found on classpath with location pattern '{}'. \n {} "
-                            + "\nPlease change matcher pattern {graphql.schemaLocationPattern}."
-                    , locationPattern
-                    , prettyPrintResourcesAsList(resources));
-        }
     }
 
 }
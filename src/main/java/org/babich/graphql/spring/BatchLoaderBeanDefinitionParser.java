@@ -0,0 +1,65 @@
+/**
+ * @author Vadim Babich
+ */
+package org.babich.graphql.spring;
+
+import org.babich.graphql.spring.factory.BatchLoaderFactoryBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.parsing.BeanComponentDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.BeanDefinitionParser;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.util.StringUtils;
+import org.w3c.dom.Element;
+
+import static org.springframework.beans.factory.config.BeanDefinition.ROLE_APPLICATION;
+
+/**
+ * Loads a batch loader from an XML file and registers it under the given name,
+ * the name is the key of the loader in the per-request {@link org.dataloader.DataLoaderRegistry}.
+ */
+public class BatchLoaderBeanDefinitionParser implements BeanDefinitionParser {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+
+    @Override
+    public BeanDefinition parse(Element element, ParserContext parserContext) {
+
+        String name = element.getAttribute("name");
+        if (StringUtils.isEmpty(name)) {
+            parserContext.getReaderContext().error("Attribute ('name') must be defined", element);
+            return null;
+        }
+
+        String loaderClassName = element.getAttribute("loader-class");
+        String loaderReference = element.getAttribute("loader-ref");
+        if (StringUtils.isEmpty(loaderClassName) == StringUtils.isEmpty(loaderReference)) {
+            parserContext.getReaderContext()
+                    .error("Exactly one of the attributes ('loader-class' or 'loader-ref') must be defined", element);
+            return null;
+        }
+
+        // the class is declared as an inner bean, so the loader is not registered twice under a generated name
+        Object loader = StringUtils.isEmpty(loaderReference)
+                ? BeanDefinitionBuilder.rootBeanDefinition(loaderClassName).setRole(ROLE_APPLICATION).getBeanDefinition()
+                : new RuntimeBeanReference(loaderReference);
+
+        BeanDefinition beanDef = BeanDefinitionBuilder.rootBeanDefinition(BatchLoaderFactoryBean.class)
+                .setRole(ROLE_APPLICATION)
+                .addPropertyValue("batchLoader", loader)
+                .getBeanDefinition();
+
+        parserContext.getRegistry().registerBeanDefinition(name, beanDef);
+        parserContext.registerComponent(new BeanComponentDefinition(beanDef, name));
+
+        logger.debug("New batch loader {} has been registered through {}."
+                , name, StringUtils.isEmpty(loaderReference) ? loaderClassName : loaderReference);
+
+        return null;
+    }
+
+}
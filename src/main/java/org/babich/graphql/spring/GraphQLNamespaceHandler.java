@@ -13,6 +13,7 @@ public class GraphQLNamespaceHandler extends NamespaceHandlerSupport {
     @Override
     public void init() {
         registerBeanDefinitionParser("type", new GraphQLBeanDefinitionParser());
+        registerBeanDefinitionParser("batch-loader", new BatchLoaderBeanDefinitionParser());
     }
 
 }
@@ -0,0 +1,93 @@
+/**
+ * @author Vadim Babich
+ */
+package org.babich.graphql.spring.factory;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.FactoryBean;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes a batch loader declared by the {@code batch-loader} element under the name of the element,
+ * so the loader is registered in the {@link org.dataloader.DataLoaderRegistry} under that name.
+ */
+public class BatchLoaderFactoryBean implements FactoryBean<Object> {
+
+    private Object batchLoader;
+
+    public BatchLoaderFactoryBean() {
+    }
+
+    @Override
+    public Object getObject() {
+        if (!(batchLoader instanceof BatchLoader || batchLoader instanceof MappedBatchLoader)) {
+            throw new IllegalArgumentException("The loader must be a BatchLoader or a MappedBatchLoader, but was "
+                    + batchLoader);
+        }
+        return batchLoader;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return null == batchLoader ? null : batchLoader.getClass();
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+
+    /**
+     * Loader beans without the beans referenced by the {@code batch-loader} elements. A referenced bean is
+     * registered under the name of the element only, otherwise every request creates two
+     * {@link org.dataloader.DataLoader}s of the same loader.
+     *
+     * @param loaders   loader beans by bean names
+     * @param factories factories of the {@code batch-loader} elements by bean names
+     */
+    public static <T> Map<String, T> withoutReferencedLoaders(Map<String, T> loaders
+            , Map<String, BatchLoaderFactoryBean> factories) {
+
+        Set<String> elementNames = factories.keySet().stream()
+                .map(name -> name.startsWith(BeanFactory.FACTORY_BEAN_PREFIX)
+                        ? name.substring(BeanFactory.FACTORY_BEAN_PREFIX.length()) : name)
+                .collect(Collectors.toSet());
+
+        Set<Object> referencedLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+        factories.values().forEach(factory -> referencedLoaders.add(factory.getBatchLoader()));
+
+        Map<String, T> result = new LinkedHashMap<>();
+        loaders.forEach((name, loader) -> {
+            if (elementNames.contains(name) || !referencedLoaders.contains(loader)) {
+                result.put(name, loader);
+            }
+        });
+        return result;
+    }
+
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", BatchLoaderFactoryBean.class.getSimpleName() + "[", "]")
+                .add("batchLoader=" + batchLoader)
+                .toString();
+    }
+
+    public Object getBatchLoader() {
+        return batchLoader;
+    }
+
+    public void setBatchLoader(Object batchLoader) {
+        this.batchLoader = batchLoader;
+    }
+}
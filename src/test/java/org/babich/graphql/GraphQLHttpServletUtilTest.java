@@ -0,0 +1,59 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.ws.rs.container.AsyncResponse;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GraphQLHttpServletUtilTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // an object without properties is not serialized by the default ObjectMapper
+    private final ExecutionResult unserializable = ExecutionResultImpl.newExecutionResult()
+            .data(Collections.singletonMap("field", new Object()))
+            .build();
+
+
+    @Test
+    public void deferredResultGetsTheSerializationError() {
+        DeferredResult<ResponseEntity<String>> deferredResult = GraphQLHttpServletUtil.getResultAsDeferredResult(
+                CompletableFuture.completedFuture(unserializable), objectMapper);
+
+        Assert.assertTrue(deferredResult.hasResult());
+        Assert.assertTrue(deferredResult.getResult() instanceof UncheckedIOException);
+    }
+
+    @Test
+    public void asyncResponseIsResumedWithTheSerializationError() {
+        AtomicReference<Object> resumed = new AtomicReference<>();
+        AsyncResponse asyncResponse = (AsyncResponse) Proxy.newProxyInstance(getClass().getClassLoader()
+                , new Class<?>[]{AsyncResponse.class}
+                , (proxy, method, arguments) -> {
+                    if ("resume".equals(method.getName())) {
+                        resumed.set(arguments[0]);
+                        return true;
+                    }
+                    return null;
+                });
+
+        GraphQLHttpServletUtil.resumeWithResult(CompletableFuture.completedFuture(unserializable)
+                , objectMapper, asyncResponse);
+
+        Assert.assertTrue(resumed.get() instanceof UncheckedIOException);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ExecutionInput;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GraphQLQueryCacheKeyStrategyTest {
+
+    private final GraphQLQueryCacheKeyStrategy keyStrategy = new GraphQLQueryCacheKeyStrategy.NormalizedQueryHash();
+
+    @Test
+    public void formattingDoesNotChangeKey() {
+        Object compact = key("query($count: Int){stringField, getRandomLocalDates(count: $count)}", null);
+
+        Object formatted = key("# dates\n"
+                + "query ($count: Int) {\n"
+                + "    stringField     # comment\n"
+                + "    getRandomLocalDates(count: $count)\n"
+                + "}\n", null);
+
+        Assert.assertEquals(compact, formatted);
+        Assert.assertEquals(compact.hashCode(), formatted.hashCode());
+    }
+
+    @Test
+    public void stringValuesAreKeptAsIs() {
+        Assert.assertNotEquals(key("query{ search(text: \"a  b\") }", null)
+                , key("query{ search(text: \"a b\") }", null));
+
+        Assert.assertNotEquals(key("query{ search(text: \"# not a comment\") }", null)
+                , key("query{ search(text: \"\") }", null));
+    }
+
+    @Test
+    public void namesAreNotMerged() {
+        Assert.assertNotEquals(key("query{ a b }", null), key("query{ ab }", null));
+        Assert.assertEquals("query{a b}", GraphQLQueryCacheKeyStrategy.NormalizedQueryHash.normalize("query { a, b }"));
+    }
+
+    @Test
+    public void operationNameIsPartOfKey() {
+        String query = "query first{stringField} query second{decimalField}";
+
+        Assert.assertNotEquals(key(query, "first"), key(query, "second"));
+    }
+
+    private Object key(String query, String operationName) {
+        return keyStrategy.cacheKey(ExecutionInput.newExecutionInput()
+                .query(query)
+                .operationName(operationName)
+                .build());
+    }
+}
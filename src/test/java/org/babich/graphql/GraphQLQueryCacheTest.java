@@ -0,0 +1,107 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class GraphQLQueryCacheTest {
+
+    private static final String query = "query{stringField, decimalField, localDateField, dateField}";
+
+    @Test
+    public void singleFlightComputesOnce() throws Exception {
+        GraphQLQueryCache queryCache = new GraphQLQueryCache(newCache(), Function.identity(), true);
+
+        Assert.assertEquals(1, coldHit(queryCache, 16));
+    }
+
+    @Test
+    public void failedComputationIsNotCached() {
+        GraphQLQueryCache queryCache = new GraphQLQueryCache(newCache(), executionInput -> {
+            throw new IllegalArgumentException("Query name {" + executionInput.getQuery() + "} is not found.");
+        }, true);
+
+        ExecutionInput input = ExecutionInput.newExecutionInput().query("unknown").build();
+
+        PreparsedDocumentEntry entry = queryCache.getDocument(input, this::parse);
+
+        Assert.assertTrue(entry.hasErrors());
+        Assert.assertEquals("Query name {unknown} is not found.", entry.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    public void cacheStatistics() {
+        GraphQLQueryCache queryCache = new GraphQLQueryCache(new CaffeineCache("preparsed-graphql-queries"
+                , Caffeine.newBuilder().recordStats().build(), false), Function.identity(), true);
+
+        ExecutionInput input = ExecutionInput.newExecutionInput().query(query).build();
+        queryCache.getDocument(input, this::parse);
+        queryCache.getDocument(input, this::parse);
+
+        Assert.assertTrue(queryCache.getStats().isPresent());
+        Assert.assertEquals(1, queryCache.getStats().get().hitCount());
+        Assert.assertEquals(1, queryCache.getStats().get().missCount());
+
+        Assert.assertFalse(new GraphQLQueryCache(newCache(), Function.identity(), true).getStats().isPresent());
+    }
+
+    private int coldHit(GraphQLQueryCache queryCache, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            AtomicInteger computations = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutionInput input = ExecutionInput.newExecutionInput().query(query).build();
+
+            List<Future<PreparsedDocumentEntry>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return queryCache.getDocument(input, executionInput -> {
+                        computations.incrementAndGet();
+                        sleep();
+                        return parse(executionInput);
+                    });
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<PreparsedDocumentEntry> future : futures) {
+                Assert.assertFalse(future.get(10, TimeUnit.SECONDS).hasErrors());
+            }
+            return computations.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PreparsedDocumentEntry parse(ExecutionInput executionInput) {
+        return new PreparsedDocumentEntry(Parser.parse(executionInput.getQuery()));
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CaffeineCache newCache() {
+        return new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder().build(), false);
+    }
+}
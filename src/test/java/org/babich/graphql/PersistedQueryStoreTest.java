@@ -0,0 +1,102 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLContext;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class PersistedQueryStoreTest {
+
+    private static final String query = "{greeting}";
+
+    private final GraphQL graphQL = GraphQL.newGraphQL(schema()).build();
+
+    private final PersistedQueryStore store =
+            new PersistedQueryStore.CacheStore(new ConcurrentMapCache("persisted-graphql-queries"));
+
+
+    @Test
+    public void registeredQueryIsExecutedByHash() {
+        String hash = PersistedQueryStore.sha256Hex(query);
+
+        Assert.assertEquals(Collections.singletonMap("greeting", "hello"), execute(query, hash, store).getData());
+        Assert.assertEquals(Collections.singletonMap("greeting", "hello"), execute(null, hash, store).getData());
+    }
+
+    @Test
+    public void uppercaseHash() {
+        String hash = PersistedQueryStore.sha256Hex(query).toUpperCase(Locale.ROOT);
+
+        Assert.assertTrue(execute(query, hash, store).getErrors().isEmpty());
+        Assert.assertEquals(Collections.singletonMap("greeting", "hello"), execute(null, hash, store).getData());
+    }
+
+    @Test
+    public void storeIgnoresCaseOfHash() {
+        String hash = PersistedQueryStore.sha256Hex(query);
+        store.putQuery(hash.toUpperCase(Locale.ROOT), query);
+
+        Assert.assertEquals(query, store.getQuery(hash));
+        Assert.assertEquals(query, store.getQuery(hash.toUpperCase(Locale.ROOT)));
+    }
+
+    @Test
+    public void unknownHash() {
+        assertError(PersistedQueryError.notFound, execute(null, PersistedQueryStore.sha256Hex(query), store));
+    }
+
+    @Test
+    public void hashMismatch() {
+        assertError(PersistedQueryError.hashMismatch, execute(query, PersistedQueryStore.sha256Hex("{other}"), store));
+        assertError(PersistedQueryError.notFound, execute(null, PersistedQueryStore.sha256Hex("{other}"), store));
+    }
+
+    @Test
+    public void persistedQueriesAreNotSupported() {
+        assertError(PersistedQueryError.notSupported, execute(null, PersistedQueryStore.sha256Hex(query), null));
+    }
+
+
+    private ExecutionResult execute(String query, String hash, PersistedQueryStore store) {
+        Map<String, Object> persistedQuery = new HashMap<>();
+        persistedQuery.put(GraphQLHttpServletUtil.version, 1);
+        persistedQuery.put(GraphQLHttpServletUtil.sha256Hash, hash);
+
+        GraphQLHttpServletUtil.Payload payload = new GraphQLHttpServletUtil.Payload(query
+                , Collections.emptyMap()
+                , null
+                , Collections.singletonMap(GraphQLHttpServletUtil.persistedQuery, persistedQuery));
+
+        return GraphQLHttpServletUtil.execute(graphQL, payload, store, GraphQLContext.newContext().build(), () -> null);
+    }
+
+    private static void assertError(String message, ExecutionResult result) {
+        Assert.assertNull(result.getData());
+        Assert.assertEquals(1, result.getErrors().size());
+        Assert.assertEquals(message, result.getErrors().get(0).getMessage());
+    }
+
+    private static GraphQLSchema schema() {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder.dataFetcher("greeting", environment -> "hello"))
+                .build();
+
+        return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse("type Query { greeting: String }")
+                , wiring);
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PreparsedDocumentWeigherTest {
+
+    private final PreparsedDocumentWeigher weigher = new PreparsedDocumentWeigher();
+
+    @Test
+    public void largerDocumentWeighsMore() {
+        int small = weigh("query{stringField}");
+        int large = weigh("query($count: Int){stringField, decimalField, localDateField, dateField"
+                + ", getRandomLocalDates(count: $count)}");
+
+        Assert.assertTrue(small > PreparsedDocumentWeigher.entryOverhead);
+        Assert.assertTrue(large > small);
+    }
+
+    private int weigh(String query) {
+        return weigher.weigh(query, new PreparsedDocumentEntry(Parser.parse(query)));
+    }
+}
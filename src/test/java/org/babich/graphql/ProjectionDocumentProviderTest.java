@@ -0,0 +1,69 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class ProjectionDocumentProviderTest {
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    public void openQueriesDoNotEvictProjections() {
+        CaffeineCache cache = new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder()
+                .maximumSize(2)
+                .executor(Runnable::run)
+                .build(), false);
+
+        ProjectionDocumentProvider provider = new ProjectionDocumentProvider(
+                Collections.singletonMap("getStringField", "query{stringField}")
+                , new GraphQLQueryCache(cache, Function.identity(), true));
+
+        provider.getDocument(projection("getStringField"), this::parse);
+
+        for (int i = 0; i < 100; i++) {
+            provider.getDocument(ExecutionInput.newExecutionInput("query{field" + i + "}").build(), this::parse);
+        }
+
+        PreparsedDocumentEntry entry = provider.getDocument(projection("getStringField"), this::parse);
+
+        Assert.assertFalse(entry.hasErrors());
+        Assert.assertEquals(101, computations.get());
+        Assert.assertTrue(cache.getNativeCache().estimatedSize() <= 2);
+        Assert.assertSame(entry, provider.getProjectionDocuments().get("getStringField"));
+    }
+
+    @Test
+    public void unknownProjection() {
+        ProjectionDocumentProvider provider = new ProjectionDocumentProvider(Collections.emptyMap()
+                , new GraphQLQueryCache());
+
+        PreparsedDocumentEntry entry = provider.getDocument(projection("unknown"), this::parse);
+
+        Assert.assertTrue(entry.hasErrors());
+        Assert.assertTrue(provider.getProjectionDocuments().isEmpty());
+    }
+
+    private static ExecutionInput projection(String name) {
+        return ExecutionInput.newExecutionInput(name)
+                .context(new GraphQLContextBuilder.ServletGraphQLContextBuilder().projection(true).build())
+                .build();
+    }
+
+    private PreparsedDocumentEntry parse(ExecutionInput executionInput) {
+        computations.incrementAndGet();
+        return new PreparsedDocumentEntry(Parser.parse(executionInput.getQuery()));
+    }
+}
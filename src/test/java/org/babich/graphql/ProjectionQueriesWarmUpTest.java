@@ -0,0 +1,149 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.validation.ValidationError;
+import org.babich.graphql.schema.SchemaBoundDocumentProvider;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class ProjectionQueriesWarmUpTest {
+
+    private final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("type Query { stringField: String, intField: Int }")
+            , RuntimeWiring.newRuntimeWiring().build());
+
+    private final List<String> hooks = new ArrayList<>();
+
+    private final GraphQL graphQL = GraphQL.newGraphQL(schema)
+            .instrumentation(new SimpleInstrumentation() {
+                @Override
+                public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+                    hooks.add("parse " + parameters.getQuery());
+                    return super.beginParse(parameters);
+                }
+
+                @Override
+                public InstrumentationContext<List<ValidationError>> beginValidation(
+                        InstrumentationValidationParameters parameters) {
+                    hooks.add("validate " + parameters.getQuery());
+                    return super.beginValidation(parameters);
+                }
+            })
+            .build();
+
+    private final CaffeineCache cache =
+            new CaffeineCache("preparsed-graphql-queries", Caffeine.newBuilder().build(), false);
+
+    @Test
+    public void projectionsArePreparsed() {
+        Map<String, String> projections = new HashMap<>();
+        projections.put("getStringField", "query{stringField}");
+        projections.put("getAllFields", "query{stringField, intField}");
+
+        new ProjectionQueriesWarmUp(graphQL, queryCache(projections), projections).warmUp();
+
+        Assert.assertEquals(2, cache.getNativeCache().estimatedSize());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidProjectionFails() {
+        Map<String, String> projections = new HashMap<>();
+        projections.put("getStringField", "query{stringField}");
+        projections.put("getUnknownField", "query{unknownField}");
+
+        new ProjectionQueriesWarmUp(graphQL, queryCache(projections), projections).warmUp();
+    }
+
+    @Test
+    public void instrumentationOfParsingAndValidation() {
+        Map<String, String> projections = new HashMap<>();
+        projections.put("getStringField", "query{stringField}");
+
+        new ProjectionQueriesWarmUp(graphQL, queryCache(projections), projections).warmUp();
+
+        Assert.assertEquals(2, hooks.size());
+        Assert.assertEquals("parse query{stringField}", hooks.get(0));
+        Assert.assertEquals("validate query{stringField}", hooks.get(1));
+    }
+
+    @Test
+    public void projectionsAreNotValidatedAgainWithSchemaReload() {
+        AtomicInteger literals = new AtomicInteger();
+        GraphQLScalarType counted = GraphQLScalarType.newScalar()
+                .name("Counted")
+                .coercing(new Coercing<Object, Object>() {
+                    @Override
+                    public Object serialize(Object dataFetcherResult) {
+                        return dataFetcherResult;
+                    }
+
+                    @Override
+                    public Object parseValue(Object input) {
+                        return input;
+                    }
+
+                    @Override
+                    public Object parseLiteral(Object input) {
+                        literals.incrementAndGet();
+                        return ((StringValue) input).getValue();
+                    }
+                })
+                .build();
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("scalar Counted type Query { echo(value: Counted): String }")
+                , RuntimeWiring.newRuntimeWiring().scalar(counted).build());
+
+        Map<String, String> projections = Collections.singletonMap("getEcho", "query{echo(value: \"echo\")}");
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new SchemaBoundDocumentProvider(queryCache(projections), schema))
+                .build();
+
+        new ProjectionQueriesWarmUp(graphQL, projections).warmUp();
+        Assert.assertEquals(1, literals.get());
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(graphQL.execute(ExecutionInput.newExecutionInput().query("getEcho")
+                    .context(new GraphQLContextFactory.ServletGraphQLContextFactory().projection(null)))
+                    .getErrors().isEmpty());
+        }
+
+        // the literal is parsed once by the validation of the warm-up and once by every execution
+        Assert.assertEquals(1 + 3, literals.get());
+    }
+
+    private GraphQLQueryCache queryCache(Map<String, String> projections) {
+        return new GraphQLQueryCache(cache
+                , executionInput -> executionInput.transform(builder ->
+                builder.query(projections.get(executionInput.getQuery())))
+                , true);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ProjectionResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final ProjectionResponseCache cache = new ProjectionResponseCache(
+            Collections.singletonMap("cached", Duration.ofMinutes(1)), 1 << 20);
+
+
+    @Test
+    public void concurrentMissesExecuteOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ExecutionResult> slow = () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result("value");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<ProjectionResponseCache.CachedResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(CompletableFuture.supplyAsync(() -> cache.get("cached"
+                        , Collections.singletonMap("id", "1"), slow, objectMapper), executor));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            String etag = responses.get(0).get(5, TimeUnit.SECONDS).getEtag();
+            for (CompletableFuture<ProjectionResponseCache.CachedResponse> response : responses) {
+                Assert.assertEquals(etag, response.get(5, TimeUnit.SECONDS).getEtag());
+            }
+            Assert.assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void projectionIsExecutedOutOfTheLockOfTheCache() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ExecutionResult> slow = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result("value");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<ProjectionResponseCache.CachedResponse> response = CompletableFuture.supplyAsync(
+                    () -> cache.get("cached", Collections.emptyMap(), slow, objectMapper), executor);
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the entry being loaded is not locked, so it might be invalidated at once
+            CompletableFuture.runAsync(() -> cache.getCache().invalidate(
+                    Arrays.asList("cached", Collections.emptyMap())), executor).get(1, TimeUnit.SECONDS);
+
+            release.countDown();
+            Assert.assertFalse(response.get(5, TimeUnit.SECONDS).isError());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void errorsAndProjectionsWithoutTimeToLiveAreNotCached() {
+        cache.get("cached", Collections.emptyMap(), this::error, objectMapper);
+        ProjectionResponseCache.CachedResponse error = cache.get("cached", Collections.emptyMap(), this::error
+                , objectMapper);
+
+        cache.get("other", Collections.emptyMap(), () -> result("value"), objectMapper);
+        cache.get("other", Collections.emptyMap(), () -> result("value"), objectMapper);
+
+        Assert.assertTrue(error.isError());
+        Assert.assertFalse(error.isNotModified(error.getEtag()));
+        Assert.assertEquals(4, executions.get());
+    }
+
+    @Test
+    public void etagIsMatched() {
+        ProjectionResponseCache.CachedResponse response = cache.get("cached", Collections.emptyMap()
+                , () -> result("value"), objectMapper);
+
+        Assert.assertTrue(response.isNotModified(response.getEtag()));
+        Assert.assertTrue(response.isNotModified("\"other\", W/" + response.getEtag()));
+        Assert.assertTrue(response.isNotModified("*"));
+        Assert.assertFalse(response.isNotModified("\"other\""));
+        Assert.assertFalse(response.isNotModified(null));
+    }
+
+    @Test
+    public void responseEntityIsNotModifiedForTheSameEtag() {
+        ProjectionResponseCache.CachedResponse response = cache.get("cached", Collections.emptyMap()
+                , () -> result("value"), objectMapper);
+
+        ResponseEntity<byte[]> entity = GraphQLHttpServletUtil.getCachedResultAsResponseEntity(response, null);
+        Assert.assertEquals(HttpStatus.OK, entity.getStatusCode());
+        Assert.assertEquals(response.getEtag(), entity.getHeaders().getETag());
+        Assert.assertArrayEquals(response.getBody(), entity.getBody());
+
+        ResponseEntity<byte[]> notModified = GraphQLHttpServletUtil.getCachedResultAsResponseEntity(response
+                , entity.getHeaders().getETag());
+        Assert.assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        Assert.assertEquals(response.getEtag(), notModified.getHeaders().getETag());
+        Assert.assertNull(notModified.getBody());
+
+        ProjectionResponseCache.CachedResponse error = cache.get("cached", Collections.singletonMap("id", "1")
+                , this::error, objectMapper);
+        Assert.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR
+                , GraphQLHttpServletUtil.getCachedResultAsResponseEntity(error, error.getEtag()).getStatusCode());
+    }
+
+    private ExecutionResult result(String value) {
+        executions.incrementAndGet();
+        return ExecutionResultImpl.newExecutionResult().data(Collections.singletonMap("field", value)).build();
+    }
+
+    private ExecutionResult error() {
+        executions.incrementAndGet();
+        return ExecutionResultImpl.newExecutionResult()
+                .addError(GraphqlErrorBuilder.newError().message("failed").build()).build();
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.babich.graphql.GraphQLQueryCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DocumentAnalysisTest {
+
+    private static final String sdl = "type Query { node: Node }\n"
+            + "type Node { id: ID, child: Node }";
+
+    private final AtomicInteger calculated = new AtomicInteger();
+
+    private GraphQL graphQL;
+
+
+    @Before
+    public void setUp() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl)
+                , RuntimeWiring.newRuntimeWiring().build());
+
+        FieldComplexityCalculator calculator = (environment, childComplexity) -> {
+            calculated.incrementAndGet();
+            return childComplexity + 1;
+        };
+
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new ChainedInstrumentation(Arrays.asList(
+                        new CachedMaxQueryDepthInstrumentation(3)
+                        , new CachedMaxQueryComplexityInstrumentation(10, calculator))))
+                .preparsedDocumentProvider(new GraphQLQueryCache())
+                .build();
+    }
+
+    @Test
+    public void cachedDocumentIsAnalyzedOnce() {
+        String query = "{node{child{id}}}";
+
+        Assert.assertTrue(execute(query, Collections.emptyMap()).getErrors().isEmpty());
+        int fields = calculated.get();
+        Assert.assertTrue(execute(query, Collections.emptyMap()).getErrors().isEmpty());
+
+        Assert.assertEquals(3, fields);
+        Assert.assertEquals(fields, calculated.get());
+    }
+
+    @Test
+    public void depthIsCheckedOnCacheHits() {
+        String query = "query($deep: Boolean!){node{child{child @include(if: $deep){id}}}}";
+
+        ExecutionResult shallow = execute(query, Collections.singletonMap("deep", false));
+        ExecutionResult deep = execute(query, Collections.singletonMap("deep", true));
+
+        Assert.assertTrue(shallow.getErrors().isEmpty());
+        Assert.assertEquals(1, deep.getErrors().size());
+        Assert.assertTrue(deep.getErrors().get(0) instanceof AbortExecutionException);
+    }
+
+    @Test
+    public void complexityIsCheckedOnCacheHits() {
+        String query = "{node{child{child{id}}}}";
+        GraphQL lenient = graphQL.transform(builder -> builder.instrumentation(
+                new CachedMaxQueryComplexityInstrumentation(3)));
+
+        Assert.assertEquals(1, lenient.execute(query).getErrors().size());
+        Assert.assertEquals(1, lenient.execute(query).getErrors().size());
+    }
+
+    private ExecutionResult execute(String query, Map<String, Object> variables) {
+        return graphQL.execute(ExecutionInput.newExecutionInput().query(query).variables(variables));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.analysis;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.AbortExecutionException;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import org.babich.graphql.GraphQLQueryCache;
+import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class MaxQueryCostInstrumentationTest {
+
+    private static final String sdl = "directive @connection(for: String!) on FIELD_DEFINITION\n"
+            + "type Query {\n"
+            + "  item: Item @cost(weight: 5)\n"
+            + "  items(first: Int, after: String, last: Int, before: String): ItemConnection @connection(for: \"Item\")\n"
+            + "  search(limit: Int): [Item] @cost(weight: 2, multipliers: [\"limit\"])\n"
+            + "}\n"
+            + "type Item { id: ID, name: String }";
+
+    private GraphQLSchema schema;
+
+
+    @Before
+    public void setUp() {
+        schema = new SchemaGenerator().makeExecutableSchema(new DirectiveExtensionSchemaParser().parse(sdl)
+                , RuntimeWiring.newRuntimeWiring().build());
+    }
+
+    @Test
+    public void fieldsAreWeightedAndMultiplied() {
+        Assert.assertEquals(5 + 2, cost("{item{id name}}"));
+        Assert.assertEquals((1 + (1 + (1 + 2))) * 10, cost("{items(first: 10){edges{node{id name}}}}"));
+        Assert.assertEquals((2 + 1) * 7, cost("{search(limit: 7){id}}"));
+        Assert.assertEquals(1 + 1 + 1, cost("{items{pageInfo{hasNextPage}}}"));
+    }
+
+    @Test
+    public void expensiveQueriesAreRejectedOnEveryRequest() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MaxQueryCostInstrumentation(100))
+                .preparsedDocumentProvider(new GraphQLQueryCache())
+                .build();
+
+        String query = "query($limit: Int){search(limit: $limit){id}}";
+
+        ExecutionResult cheap = graphQL.execute(ExecutionInput.newExecutionInput().query(query)
+                .variables(Collections.singletonMap("limit", 10)));
+        ExecutionResult expensive = graphQL.execute(ExecutionInput.newExecutionInput().query(query)
+                .variables(Collections.singletonMap("limit", 1000)));
+
+        Assert.assertTrue(cheap.getErrors().isEmpty());
+        Assert.assertEquals(1, expensive.getErrors().size());
+        Assert.assertTrue(expensive.getErrors().get(0) instanceof AbortExecutionException);
+    }
+
+    @Test
+    public void skippedFieldsAreCountedWhenIncluded() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MaxQueryCostInstrumentation(100))
+                .preparsedDocumentProvider(new GraphQLQueryCache())
+                .build();
+
+        String query = "query($skip: Boolean!){item{id} search(limit: 1000) @skip(if: $skip){id}}";
+
+        ExecutionResult cheap = graphQL.execute(ExecutionInput.newExecutionInput().query(query)
+                .variables(Collections.singletonMap("skip", true)));
+        ExecutionResult expensive = graphQL.execute(ExecutionInput.newExecutionInput().query(query)
+                .variables(Collections.singletonMap("skip", false)));
+
+        Assert.assertTrue(cheap.getErrors().isEmpty());
+        Assert.assertEquals(1, expensive.getErrors().size());
+        Assert.assertTrue(expensive.getErrors().get(0) instanceof AbortExecutionException);
+    }
+
+    @Test
+    public void onlyVariableIndependentCostIsReused() {
+        Assert.assertTrue(QueryCost.calculate(schema, parse("query($after: String){items(first: 5, after: $after){edges{cursor}}}")
+                , null, Collections.emptyMap(), new CostFieldComplexityCalculator()).isVariableIndependent());
+        Assert.assertFalse(QueryCost.calculate(schema, parse("query($first: Int){items(first: $first){edges{cursor}}}")
+                , null, Collections.singletonMap("first", 5), new CostFieldComplexityCalculator()).isVariableIndependent());
+    }
+
+    private int cost(String query) {
+        return QueryCost.calculate(schema, parse(query), null, Collections.emptyMap()
+                , new CostFieldComplexityCalculator()).getCost();
+    }
+
+    private static graphql.language.Document parse(String query) {
+        return new graphql.parser.Parser().parseDocument(query);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.connection;
+
+import graphql.GraphqlErrorException;
+import graphql.relay.Connection;
+import graphql.relay.Edge;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class KeysetConnectionFetcherTest {
+
+    private final NumberSource source = new NumberSource(10);
+
+    private final KeysetConnectionFetcher<Long, Long> fetcher =
+            new KeysetConnectionFetcher<>(KeysetCursor.ofLong("Number"), source, 5);
+
+
+    @Test
+    public void forwardPages() {
+        Connection<Long> page = fetch("first", 4);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), nodes(page));
+        Assert.assertFalse(page.getPageInfo().isHasPreviousPage());
+        Assert.assertTrue(page.getPageInfo().isHasNextPage());
+
+        page = fetch("first", 4, "after", page.getPageInfo().getEndCursor().getValue());
+        Assert.assertEquals(Arrays.asList(5L, 6L, 7L, 8L), nodes(page));
+        Assert.assertTrue(page.getPageInfo().isHasPreviousPage());
+        Assert.assertTrue(page.getPageInfo().isHasNextPage());
+
+        page = fetch("first", 4, "after", page.getPageInfo().getEndCursor().getValue());
+        Assert.assertEquals(Arrays.asList(9L, 10L), nodes(page));
+        Assert.assertFalse(page.getPageInfo().isHasNextPage());
+
+        // limit + 1, the source is not scanned beyond the page
+        Assert.assertEquals(Arrays.asList(5, 5, 5), limits());
+    }
+
+    @Test
+    public void backwardPages() {
+        Connection<Long> page = fetch("last", 3);
+        Assert.assertEquals(Arrays.asList(8L, 9L, 10L), nodes(page));
+        Assert.assertTrue(page.getPageInfo().isHasPreviousPage());
+        Assert.assertFalse(page.getPageInfo().isHasNextPage());
+
+        page = fetch("last", 3, "before", page.getPageInfo().getStartCursor().getValue());
+        Assert.assertEquals(Arrays.asList(5L, 6L, 7L), nodes(page));
+        Assert.assertTrue(page.getPageInfo().isHasNextPage());
+        Assert.assertEquals(page.getEdges().get(0).getCursor(), page.getPageInfo().getStartCursor());
+    }
+
+    @Test
+    public void rangeOfCursors() {
+        String after = fetcher.getCursor().encode(2L);
+        String before = fetcher.getCursor().encode(9L);
+
+        Connection<Long> page = fetch("first", 5, "after", after, "before", before, "last", 2);
+        Assert.assertEquals(Arrays.asList(6L, 7L), nodes(page));
+        Assert.assertTrue(page.getPageInfo().isHasPreviousPage());
+        Assert.assertTrue(page.getPageInfo().isHasNextPage());
+    }
+
+    @Test
+    public void pageSizeIsLimited() {
+        Assert.assertEquals(5, fetch().getEdges().size());
+        Assert.assertEquals(5, fetch("first", 50).getEdges().size());
+        Assert.assertEquals(Arrays.asList(6, 6), limits());
+    }
+
+    @Test
+    public void emptyPage() {
+        Connection<Long> page = fetch("first", 0);
+        Assert.assertTrue(page.getEdges().isEmpty());
+        Assert.assertNull(page.getPageInfo().getStartCursor());
+        Assert.assertTrue(page.getPageInfo().isHasNextPage());
+    }
+
+    @Test
+    public void invalidCursors() {
+        assertRejected("first", 2, "after", KeysetCursor.ofLong("Other").encode(1L));
+        assertRejected("first", 2, "after", KeysetCursor.ofString("Number").encode("one"));
+        assertRejected("first", 2, "after", "not a cursor");
+        assertRejected("first", -1);
+        Assert.assertTrue(source.requests.isEmpty());
+    }
+
+
+    private void assertRejected(Object... arguments) {
+        try {
+            fetch(arguments);
+            Assert.fail();
+        } catch (GraphqlErrorException e) {
+            Assert.assertEquals("BAD_USER_INPUT", e.getExtensions().get("code"));
+        }
+    }
+
+    private Connection<Long> fetch(Object... arguments) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < arguments.length; i += 2) {
+            map.put((String) arguments[i], arguments[i + 1]);
+        }
+
+        DataFetchingEnvironment environment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .arguments(map)
+                .build();
+
+        return fetcher.get(environment);
+    }
+
+    private List<Integer> limits() {
+        return source.requests.stream().map(PageRequest::getLimit).collect(Collectors.toList());
+    }
+
+    private static List<Long> nodes(Connection<Long> connection) {
+        return connection.getEdges().stream().map(Edge::getNode).collect(Collectors.toList());
+    }
+
+
+    static class NumberSource implements PageSource<Long, Long> {
+
+        private final NavigableMap<Long, Long> numbers = new TreeMap<>();
+
+        private final List<PageRequest<Long>> requests = new ArrayList<>();
+
+        NumberSource(int size) {
+            LongStream.rangeClosed(1, size).forEach(number -> numbers.put(number, number));
+        }
+
+        @Override
+        public Long getKey(Long node) {
+            return node;
+        }
+
+        @Override
+        public List<Long> getPage(PageRequest<Long> request, DataFetchingEnvironment environment) {
+            requests.add(request);
+
+            List<Long> page = new ArrayList<>(request.getLimit());
+            Iterator<Long> iterator = PageSource.range(numbers, request).values().iterator();
+            while (iterator.hasNext() && page.size() < request.getLimit()) {
+                page.add(iterator.next());
+            }
+            return page;
+        }
+    }
+}
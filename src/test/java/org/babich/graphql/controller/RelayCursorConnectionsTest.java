@@ -122,7 +122,7 @@ public class RelayCursorConnectionsTest {
     }
 
     @Configuration
-    @ImportResource(value = {"classpath*:graphql/projection-test-context.xml"})
+    @ImportResource(value = {"classpath*:graphql/relay-cursor-connections-projection-test-context.xml"})
     public static class Config {
 
         @Bean
@@ -0,0 +1,109 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.controller;
+
+import org.babich.graphql.SchemaStringProvider;
+import org.babich.graphql.configuration.CacheConfiguration;
+import org.babich.graphql.configuration.ScalarConfiguration;
+import org.babich.graphql.configuration.ServletConfiguration;
+import org.babich.graphql.schema.ReloadableGraphQL;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SpringMvcTestController.class)
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {SchemaReloadMvcTest.Config.class
+        , SpringMvcTest.Config.class
+        , CacheConfiguration.class
+        , ServletConfiguration.class
+        , ScalarConfiguration.class})
+@TestPropertySource(properties = {
+        "graphql.schema-reload.enabled=true",
+        "graphql.projection-queries.warm-up=false",
+        "graphql.schema-snapshot.location=" + SchemaReloadMvcTest.snapshots,
+})
+public class SchemaReloadMvcTest {
+
+    static final String snapshots = "target/schema-reload-snapshots";
+
+    private static volatile String schema = "type Query { stringField: String }";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReloadableGraphQL reloadableGraphQL;
+
+
+    @BeforeClass
+    public static void deleteSnapshots() throws IOException {
+        Path directory = Paths.get(snapshots);
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void requestsAreExecutedWithTheReloadedSchema() throws Exception {
+        query("{stringField}").andExpect(status().isOk());
+        query("{decimalField}").andExpect(status().isInternalServerError());
+
+        schema = "type Query { stringField: String, decimalField: Float }";
+        reloadableGraphQL.reload().get(10, TimeUnit.SECONDS);
+
+        query("{stringField, decimalField}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.decimalField").value(SpringMvcTest.expectedDecimalValue))
+                .andExpect(jsonPath("$.errors").doesNotExist());
+
+        // the snapshot of the start only, the reloaded schemas are not written
+        try (Stream<Path> files = Files.list(Paths.get(snapshots))) {
+            Assert.assertEquals(1, files.count());
+        }
+    }
+
+    private ResultActions query(String query) throws Exception {
+        return mockMvc.perform(post("/test/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{ \"query\": \"" + query + "\"}"));
+    }
+
+
+    @Configuration
+    public static class Config {
+
+        @Bean
+        public SchemaStringProvider schemaStringProvider() {
+            return () -> schema;
+        }
+    }
+}
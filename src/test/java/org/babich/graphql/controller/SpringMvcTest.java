@@ -6,6 +6,8 @@ package org.babich.graphql.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.babich.graphql.GraphQLRootObjectBuilder;
+import org.babich.graphql.PersistedQueryError;
+import org.babich.graphql.PersistedQueryStore;
 import org.babich.graphql.configuration.CacheConfiguration;
 import org.babich.graphql.configuration.ScalarConfiguration;
 import org.babich.graphql.configuration.ServletConfiguration;
@@ -17,17 +19,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Date;
 import java.util.UUID;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -42,6 +47,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @TestPropertySource(properties = {
         "graphql.schemaLocationPattern=**/*configuration-test-schema.graphqls",
+        "graphql.cache.projection-responses.enabled=true",
+        "graphql.cache.projection-responses.ttl.getAllFieldsWithDates=1m",
 })
 public class SpringMvcTest {
 
@@ -82,6 +89,53 @@ public class SpringMvcTest {
                 .andDo(print());
     }
 
+    @Test
+    public void cachedProjectionTest() throws Exception {
+        MvcResult first = mockMvc.perform(get("/test/cached/projection/getAllFieldsWithDates")
+                .param("countDates", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.data.getRandomLocalDates.length()").value(5))
+                .andReturn();
+
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/test/cached/projection/getAllFieldsWithDates")
+                .param("countDates", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(first.getResponse().getContentAsString()));
+
+        mockMvc.perform(get("/test/cached/projection/getAllFieldsWithDates")
+                .param("countDates", "5")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/test/cached/projection/getAllFieldsWithDates")
+                .param("countDates", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.getRandomLocalDates.length()").value(3));
+    }
+
+    @Test
+    public void streamingProjectionTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/test/stream/projection/getAllFieldsWithDates")
+                .param("countDates", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+
+                .andExpect(jsonPath("$.data.stringField").value(expectedStringValue))
+                .andExpect(jsonPath("$.data.decimalField").value(expectedDecimalValue))
+                .andExpect(jsonPath("$.data.localDateField").value(expectedLocalDateValue))
+                .andExpect(jsonPath("$.data.getRandomLocalDates.length()").value(3))
+                .andExpect(jsonPath("$.errors").doesNotExist());
+    }
+
     @Test
     public void executeQueryTest() throws Exception {
 
@@ -125,6 +179,74 @@ public class SpringMvcTest {
                 .andDo(print());
     }
 
+    @Test
+    public void asyncExecuteQueryTest() throws Exception {
+
+        String payload = "{ \"query\": \"query($countDates: Int){stringField, decimalField, localDateField" +
+                ", getRandomLocalDates(count: $countDates)}\"" +
+                ", \"variables\": { \"countDates\": \"2\"}" +
+                " }";
+
+        MvcResult result = mockMvc.perform(post("/test/async/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(payload))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+
+                .andExpect(jsonPath("$.data.stringField").value(expectedStringValue))
+                .andExpect(jsonPath("$.data.getRandomLocalDates.length()").value(2));
+    }
+
+    @Test
+    public void persistedQueryTest() throws Exception {
+
+        String query = "query{stringField, decimalField}";
+        String extensions = "\"extensions\": { \"persistedQuery\": { \"version\": 1, \"sha256Hash\": \""
+                + PersistedQueryStore.sha256Hex(query) + "\"}}";
+
+        mockMvc.perform(post("/test/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{" + extensions + "}"))
+
+                .andExpect(jsonPath("$.errors[0].message").value(PersistedQueryError.notFound));
+
+        mockMvc.perform(post("/test/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{ \"query\": \"" + query + "\", " + extensions + "}"))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.stringField").value(expectedStringValue));
+
+        mockMvc.perform(post("/test/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{" + extensions + "}"))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.stringField").value(expectedStringValue))
+                .andExpect(jsonPath("$.data.decimalField").value(expectedDecimalValue))
+
+                .andDo(print());
+    }
+
+    @Test
+    public void persistedQueryHashMismatchTest() throws Exception {
+
+        String payload = "{ \"query\": \"query{stringField}\"" +
+                ", \"extensions\": { \"persistedQuery\": { \"version\": 1, \"sha256Hash\": \""
+                + PersistedQueryStore.sha256Hex("query{decimalField}") + "\"}}}";
+
+        mockMvc.perform(post("/test/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(payload))
+
+                .andExpect(jsonPath("$.errors[0].message").value(PersistedQueryError.hashMismatch))
+                .andExpect(jsonPath("$.data").doesNotExist());
+    }
+
 
     @Configuration
     @ImportResource(value = {"classpath*:graphql/projection-test-context.xml"})
@@ -7,16 +7,25 @@ package org.babich.graphql.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
-import org.babich.graphql.GraphQLContextBuilder;
+import org.babich.graphql.GraphQLContextFactory;
 import org.babich.graphql.GraphQLRootObjectBuilder;
+import org.babich.graphql.PersistedQueryStore;
+import org.babich.graphql.ProjectionResponseCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.babich.graphql.GraphQLHttpServletUtil.*;
 
@@ -25,10 +34,10 @@ import static org.babich.graphql.GraphQLHttpServletUtil.*;
 public class SpringMvcTestController {
 
     @Autowired
-    GraphQL graphQL;
+    private Supplier<GraphQL> graphQL;
 
     @Autowired
-    private GraphQLContextBuilder contextBuilder;
+    private GraphQLContextFactory contextFactory;
 
     @Autowired
     private GraphQLRootObjectBuilder graphQLRootObjectBuilder;
@@ -36,43 +45,89 @@ public class SpringMvcTestController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired(required = false)
+    private PersistedQueryStore persistedQueryStore;
+
+    @Autowired(required = false)
+    private ProjectionResponseCache projectionResponseCache = new ProjectionResponseCache(Collections.emptyMap(), 0);
+
 
     @GetMapping(value = "/projection/{queryName}", produces = {MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<String> projectionPoint(@PathVariable("queryName") String queryName
-            , @RequestParam MultiValueMap<String, String> params) {
+            , @RequestParam MultiValueMap<String, String> params
+            , HttpServletRequest request) {
 
         Map<String, Object> variables = getVariables(params);
 
-        contextBuilder.projection(true);
-
-        graphQLRootObjectBuilder.build();
-
-        ExecutionResult executionResult = execute(graphQL
+        ExecutionResult executionResult = execute(graphQL.get()
                 , queryName
                 , null
                 , variables
-                , contextBuilder
+                , contextFactory.projection(request)
                 , graphQLRootObjectBuilder);
 
         return getResultAsResponseEntity(executionResult, objectMapper);
     }
 
+    @GetMapping(value = "/cached/projection/{queryName}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<byte[]> cachedProjectionPoint(@PathVariable("queryName") String queryName
+            , @RequestParam MultiValueMap<String, String> params
+            , @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+            , HttpServletRequest request) {
+
+        Map<String, Object> variables = getVariables(params);
+
+        ProjectionResponseCache.CachedResponse response = projectionResponseCache.get(queryName
+                , variables
+                , () -> execute(graphQL.get()
+                        , queryName
+                        , null
+                        , variables
+                        , contextFactory.projection(request)
+                        , graphQLRootObjectBuilder)
+                , objectMapper);
+
+        return getCachedResultAsResponseEntity(response, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/stream/projection/{queryName}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamingProjectionPoint(@PathVariable("queryName") String queryName
+            , @RequestParam MultiValueMap<String, String> params
+            , HttpServletRequest request) {
+
+        ExecutionResult executionResult = execute(graphQL.get()
+                , queryName
+                , null
+                , getVariables(params)
+                , contextFactory.projection(request)
+                , graphQLRootObjectBuilder);
+
+        return getStreamingResultAsResponseEntity(executionResult, objectMapper);
+    }
+
     @PostMapping(value = "/"
             , produces = {MediaType.APPLICATION_JSON_VALUE}, consumes = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<String> openQueryPoint(@RequestBody() Payload payload) {
+    public ResponseEntity<String> openQueryPoint(@RequestBody() Payload payload, HttpServletRequest request) {
+
+        ExecutionResult executionResult = execute(graphQL.get()
+                , payload
+                , persistedQueryStore
+                , contextFactory.openQuery(request)
+                , graphQLRootObjectBuilder);
 
-        Map<String, Object> variables = payload.getVariables();
+        return getResultAsResponseEntity(executionResult, objectMapper);
+    }
 
-        contextBuilder.projection(false);
+    @PostMapping(value = "/async/"
+            , produces = {MediaType.APPLICATION_JSON_VALUE}, consumes = {MediaType.APPLICATION_JSON_VALUE})
+    public DeferredResult<ResponseEntity<String>> asyncOpenQueryPoint(@RequestBody() Payload payload, HttpServletRequest request) {
 
-        ExecutionResult executionResult = execute(graphQL
-                , payload.getQuery()
-                , payload.getOperation()
-                , variables
-                , contextBuilder
+        CompletableFuture<ExecutionResult> executionResult = executeAsync(graphQL.get()
+                , payload
+                , persistedQueryStore
+                , contextFactory.openQuery(request)
                 , graphQLRootObjectBuilder);
 
-        return getResultAsResponseEntity(executionResult, objectMapper);
+        return getResultAsDeferredResult(executionResult, objectMapper);
     }
 }
-
@@ -28,7 +28,7 @@ import java.util.function.Supplier;
 /**
  * request GET http://localhost:8080/test/projection/{queryName}?pageSize={num}&nextPage={cursor}&containsCharacter={str}
  * <p></p>
- * queryName located in {@code src/test/resources/graphql/projection-test-context.xml}
+ * queryName located in {@code src/test/resources/graphql/relay-cursor-connections-projection-test-context.xml}
  * <p></p>
  * example:
  * <pre>
@@ -89,7 +89,7 @@ public class TestingRelayCursorConnectionsWebApplication {
 
     @Configuration
     @PropertySource("classpath:relay-cursor-connections-test-application.properties")
-    @ImportResource(value = {"classpath*:graphql/projection-test-context.xml"})
+    @ImportResource(value = {"classpath*:graphql/relay-cursor-connections-projection-test-context.xml"})
     public static class Config {
 
         @Bean
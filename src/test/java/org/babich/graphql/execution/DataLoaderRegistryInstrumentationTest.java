@@ -0,0 +1,83 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class DataLoaderRegistryInstrumentationTest {
+
+    @Test
+    public void fetchesOfOneLevelAreBatched() {
+        AtomicInteger batches = new AtomicInteger();
+
+        BatchLoader<Integer, String> names = keys -> {
+            batches.incrementAndGet();
+            return CompletableFuture.completedFuture(
+                    keys.stream().map(key -> "name-" + key).collect(Collectors.toList()));
+        };
+
+        DataFetcher<CompletableFuture<String>> nameFetcher = environment -> {
+            DataLoader<Integer, String> loader = environment.getDataLoader("names");
+            Map<String, Integer> item = environment.getSource();
+            return loader.load(item.get("id"));
+        };
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("type Query { items: [Item] } type Item { id: Int, name: String }")
+                , RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder.dataFetcher("items", environment -> Arrays.asList(
+                                Collections.singletonMap("id", 1)
+                                , Collections.singletonMap("id", 2)
+                                , Collections.singletonMap("id", 3))))
+                        .type("Item", builder -> builder.dataFetcher("name", nameFetcher))
+                        .build());
+
+        DataLoaderRegistryFactory registryFactory = new DataLoaderRegistryFactory(
+                Collections.singletonMap("names", names), null);
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new ChainedInstrumentation(Arrays.asList(
+                        new DataLoaderRegistryInstrumentation(registryFactory)
+                        , new DataLoaderDispatcherInstrumentation())))
+                .build();
+
+        ExecutionResult result = graphQL.execute("query{items{id, name}}");
+
+        Assert.assertTrue(result.getErrors().isEmpty());
+        Assert.assertEquals(1, batches.get());
+
+        Map<String, List<Map<String, Object>>> data = result.getData();
+        Assert.assertEquals("name-3", data.get("items").get(2).get("name"));
+    }
+
+    @Test
+    public void everyRequestGetsItsOwnRegistry() {
+        DataLoaderRegistryFactory registryFactory = new DataLoaderRegistryFactory(
+                Collections.singletonMap("names", keys -> CompletableFuture.completedFuture(keys)), null);
+
+        Assert.assertNotSame(registryFactory.newRegistry().getDataLoader("names")
+                , registryFactory.newRegistry().getDataLoader("names"));
+    }
+}
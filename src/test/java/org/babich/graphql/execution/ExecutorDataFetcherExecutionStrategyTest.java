@@ -0,0 +1,63 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.execution;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutorDataFetcherExecutionStrategyTest {
+
+    private final ExecutorService executor = DataFetcherExecutors.create(DataFetcherExecutors.virtual, 4, 16);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void siblingFieldsAreFetchedInParallel() {
+        CountDownLatch allFetchersStarted = new CountDownLatch(3);
+
+        DataFetcher<Boolean> blockingFetcher = environment -> {
+            allFetchersStarted.countDown();
+            return allFetchersStarted.await(5, TimeUnit.SECONDS);
+        };
+
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("type Query { first: Boolean, second: Boolean, third: Boolean, name: String }")
+                , RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder
+                                .dataFetcher("first", blockingFetcher)
+                                .dataFetcher("second", blockingFetcher)
+                                .dataFetcher("third", blockingFetcher))
+                        .build());
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .queryExecutionStrategy(new ExecutorDataFetcherExecutionStrategy(executor))
+                .build();
+
+        ExecutionResult result = graphQL.execute("query{first, second, third, name}");
+
+        Assert.assertTrue(result.getErrors().isEmpty());
+
+        Map<String, Object> data = result.getData();
+        Assert.assertEquals(Boolean.TRUE, data.get("first"));
+        Assert.assertEquals(Boolean.TRUE, data.get("second"));
+        Assert.assertEquals(Boolean.TRUE, data.get("third"));
+    }
+}
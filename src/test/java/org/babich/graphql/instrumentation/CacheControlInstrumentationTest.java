@@ -0,0 +1,140 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import org.babich.graphql.GraphQLHttpServletUtil;
+import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CacheControlInstrumentationTest {
+
+    private static final String sdl = "type Query {\n"
+            + "  countries(region: String): [Country] @cacheControl(maxAge: 3600)\n"
+            + "  profile: Profile @cacheControl(maxAge: 60, scope: PRIVATE)\n"
+            + "  now: String\n"
+            + "}\n"
+            + "type Mutation { countries: [Country] @cacheControl(maxAge: 3600) }\n"
+            + "type Country @cacheControl(maxAge: 600) { code: ID, capital: City, population: Int @cacheControl(maxAge: 60) }\n"
+            + "type City { name: String }\n"
+            + "type Profile { name: String }";
+
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+
+    private GraphQLSchema schema;
+
+    private GraphQL graphQL;
+
+    private CacheControlInstrumentation instrumentation;
+
+
+    @Before
+    public void setUp() {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder
+                        .dataFetcher("countries", counting("countries", Collections.singletonList(
+                                Collections.singletonMap("code", "NL"))))
+                        .dataFetcher("profile", counting("profile", Collections.singletonMap("name", "user")))
+                        .dataFetcher("now", counting("now", "now")))
+                .type("Country", builder -> builder
+                        .dataFetcher("population", counting("population", 17_000_000)))
+                .type("Mutation", builder -> builder
+                        .dataFetcher("countries", counting("mutation", Collections.emptyList())))
+                .build();
+
+        schema = new SchemaGenerator().makeExecutableSchema(new DirectiveExtensionSchemaParser().parse(sdl), wiring);
+
+        instrumentation = new CacheControlInstrumentation(100);
+        graphQL = GraphQL.newGraphQL(schema).instrumentation(instrumentation).build();
+    }
+
+    @Test
+    public void publicFieldsAreCachedByArguments() {
+        ExecutionResult first = graphQL.execute("{countries(region: \"EU\"){code}}");
+        graphQL.execute("{countries(region: \"EU\"){code}}");
+        graphQL.execute("{countries(region: \"US\"){code}}");
+
+        Assert.assertTrue(first.getErrors().isEmpty());
+        Assert.assertEquals(2, fetches.get("countries").get());
+        Assert.assertEquals("max-age=3600, public", GraphQLHttpServletUtil.cacheControl(first));
+    }
+
+    @Test
+    public void nestedFieldsAreCachedByParentKey() {
+        graphQL.execute("{countries{population}}");
+        graphQL.execute("{countries{population}}");
+        Assert.assertEquals(2, fetches.get("population").get());
+
+        GraphQL byCode = GraphQL.newGraphQL(schema).instrumentation(new CacheControlInstrumentation(100
+                , environment -> ((Map<?, ?>) environment.getSource()).get("code"))).build();
+        byCode.execute("{countries{population}}");
+        byCode.execute("{countries{population}}");
+        Assert.assertEquals(3, fetches.get("population").get());
+    }
+
+    @Test
+    public void fieldIsFetchedOutOfTheLockOfTheCache() {
+        AtomicLong cachedWhileFetching = new AtomicLong();
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder.dataFetcher("countries", environment -> {
+                    cachedWhileFetching.set(instrumentation.getCache().estimatedSize());
+                    return Collections.emptyList();
+                }))
+                .build();
+
+        GraphQL graphQL = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(
+                new DirectiveExtensionSchemaParser().parse(sdl), wiring)).instrumentation(instrumentation).build();
+
+        Assert.assertTrue(graphQL.execute("{countries{code}}").getErrors().isEmpty());
+        // the future of the field is in the cache before the data fetcher is called
+        Assert.assertEquals(1, cachedWhileFetching.get());
+    }
+
+    @Test
+    public void fieldsWithoutHintAreNotCacheable() {
+        ExecutionResult result = graphQL.execute("{countries{code capital{name}} now}");
+
+        Assert.assertNull(GraphQLHttpServletUtil.cacheControl(result));
+        Assert.assertNull(result.getExtensions());
+    }
+
+    @Test
+    public void privateFieldsAreNotCached() {
+        ExecutionResult first = graphQL.execute("{profile{name}}");
+        graphQL.execute("{profile{name}}");
+
+        Assert.assertEquals(2, fetches.get("profile").get());
+        Assert.assertEquals("max-age=60, private", GraphQLHttpServletUtil.cacheControl(first));
+    }
+
+    @Test
+    public void mutationsAreNotCached() {
+        ExecutionResult first = graphQL.execute("mutation {countries{code}}");
+        graphQL.execute("mutation {countries{code}}");
+
+        Assert.assertEquals(2, fetches.get("mutation").get());
+        Assert.assertNull(GraphQLHttpServletUtil.cacheControl(first));
+    }
+
+    private DataFetcher<?> counting(String name, Object value) {
+        return environment -> {
+            fetches.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+            return value;
+        };
+    }
+}
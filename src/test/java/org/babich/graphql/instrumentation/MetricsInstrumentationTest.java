@@ -0,0 +1,109 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.babich.graphql.GraphQLContextFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class MetricsInstrumentationTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private GraphQLSchema schema;
+
+
+    @Before
+    public void setUp() {
+        schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("type Query { name: String, fail: String }")
+                , RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder
+                                .dataFetcher("name", environment -> "name")
+                                .dataFetcher("fail", environment -> {
+                                    throw new IllegalStateException("fail");
+                                }))
+                        .build());
+    }
+
+    @Test
+    public void requestAndSampledFieldsAreTimed() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MetricsInstrumentation(registry, 1, false))
+                .build();
+
+        graphQL.execute(ExecutionInput.newExecutionInput().query("query getName{name}").operationName("getName"));
+
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.parseTimer).timer().count());
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.validateTimer).timer().count());
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.requestTimer)
+                .tag("operation", "getName").tag("outcome", "success").timer().count());
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.fieldTimer)
+                .tag("parent", "Query").tag("field", "name").timer().count());
+    }
+
+    @Test
+    public void fieldsAreNotTimedWhenNotSampled() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MetricsInstrumentation(registry, 0, false))
+                .build();
+
+        graphQL.execute("{name}");
+
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.requestTimer)
+                .tag("operation", OperationNames.anonymous).timer().count());
+        Assert.assertNull(registry.find(MetricsInstrumentation.fieldTimer).timer());
+    }
+
+    @Test
+    public void errorsAreCountedByOperation() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MetricsInstrumentation(registry, 0, false))
+                .build();
+
+        graphQL.execute(ExecutionInput.newExecutionInput().query("getFail")
+                .context(new GraphQLContextFactory.ServletGraphQLContextFactory().projection(null)));
+        graphQL.execute("{fail}");
+
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.errorCounter)
+                .tag("operation", "getFail").tag("classification", "InvalidSyntax").counter().count(), 0);
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.errorCounter)
+                .tag("operation", OperationNames.anonymous).tag("classification", "DataFetchingException")
+                .counter().count(), 0);
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.requestTimer)
+                .tag("operation", OperationNames.anonymous).tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    public void operationTagIsBounded() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new MetricsInstrumentation(registry, 0, false
+                        , new OperationNames.Limited(Collections.singleton("getName"), 10)))
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            graphQL.execute(ExecutionInput.newExecutionInput().query("query q" + i + "{name}").operationName("q" + i));
+        }
+        graphQL.execute(ExecutionInput.newExecutionInput().query("getName")
+                .context(new GraphQLContextFactory.ServletGraphQLContextFactory().projection(null)));
+
+        // parse, validate, 10 open queries, other, the projection and its syntax error
+        Assert.assertEquals(2 + 10 + 1 + 1 + 1, registry.getMeters().size());
+        Assert.assertEquals(990, registry.get(MetricsInstrumentation.requestTimer)
+                .tag("operation", OperationNames.other).timer().count());
+        Assert.assertEquals(1, registry.get(MetricsInstrumentation.requestTimer)
+                .tag("operation", "q9").timer().count());
+    }
+}
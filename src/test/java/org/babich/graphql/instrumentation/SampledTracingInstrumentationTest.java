@@ -0,0 +1,82 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.babich.graphql.GraphQLContextFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+public class SampledTracingInstrumentationTest {
+
+    private final GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse("type Query { name: String }")
+            , RuntimeWiring.newRuntimeWiring()
+                    .type("Query", builder -> builder.dataFetcher("name", environment -> "name"))
+                    .build());
+
+    private final GraphQLContextFactory contextFactory = new GraphQLContextFactory.ServletGraphQLContextFactory();
+
+
+    @Test
+    public void onlyRequestsWithHeaderAreTracedToSink() {
+        TraceSink.RingBuffer sink = new TraceSink.RingBuffer(2);
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new SampledTracingInstrumentation(0, "X-GraphQL-Trace", sink))
+                .build();
+
+        MockHttpServletRequest traced = new MockHttpServletRequest();
+        traced.addHeader("X-GraphQL-Trace", "1");
+
+        ExecutionResult untracedResult = graphQL.execute(ExecutionInput.newExecutionInput().query("{name}")
+                .context(contextFactory.openQuery(new MockHttpServletRequest())));
+        ExecutionResult tracedResult = graphQL.execute(ExecutionInput.newExecutionInput().query("query getName{name}")
+                .operationName("getName")
+                .context(contextFactory.openQuery(traced)));
+
+        Assert.assertNull(untracedResult.getExtensions());
+        Assert.assertNull(tracedResult.getExtensions());
+
+        List<TraceSink.Trace> traces = sink.snapshot();
+        Assert.assertEquals(1, traces.size());
+        Assert.assertEquals("getName", traces.get(0).getOperation());
+        Assert.assertNotNull(traces.get(0).getData().get("execution"));
+    }
+
+    @Test
+    public void sampledRequestsAreTracedToResponseWithoutSink() {
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new SampledTracingInstrumentation(1, null, null))
+                .build();
+
+        ExecutionResult result = graphQL.execute("{name}");
+
+        Assert.assertNotNull(result.getExtensions().get("tracing"));
+    }
+
+    @Test
+    public void ringBufferKeepsLastTraces() {
+        TraceSink.RingBuffer sink = new TraceSink.RingBuffer(2);
+
+        sink.accept("first", null);
+        sink.accept("second", null);
+        sink.accept("third", null);
+
+        List<TraceSink.Trace> traces = sink.snapshot();
+        Assert.assertEquals(2, traces.size());
+        Assert.assertEquals("second", traces.get(0).getOperation());
+        Assert.assertEquals("third", traces.get(1).getOperation());
+    }
+}
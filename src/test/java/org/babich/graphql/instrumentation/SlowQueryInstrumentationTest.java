@@ -0,0 +1,70 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.instrumentation;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SlowQueryInstrumentationTest {
+
+    @Test
+    public void slowestOperationsComeFirst() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(
+                new SchemaParser().parse("type Query { fast: String, slow: String }")
+                , RuntimeWiring.newRuntimeWiring()
+                        .type("Query", builder -> builder
+                                .dataFetcher("fast", environment -> "fast")
+                                .dataFetcher("slow", environment -> {
+                                    TimeUnit.MILLISECONDS.sleep(20);
+                                    return "slow";
+                                }))
+                        .build());
+
+        SlowQueryInstrumentation instrumentation = new SlowQueryInstrumentation(Duration.ofMillis(10), 1);
+        GraphQL graphQL = GraphQL.newGraphQL(schema).instrumentation(instrumentation).build();
+
+        graphQL.execute(ExecutionInput.newExecutionInput().query("query getSlow{slow}").operationName("getSlow"));
+        graphQL.execute(ExecutionInput.newExecutionInput().query("query getFast{fast}").operationName("getFast"));
+        graphQL.execute(ExecutionInput.newExecutionInput().query("query getFast{fast}").operationName("getFast"));
+
+        List<SlowQueryInstrumentation.OperationStatistics> slowest = instrumentation.getSlowest(10);
+
+        Assert.assertEquals(2, slowest.size());
+        Assert.assertEquals("getSlow", slowest.get(0).getOperation());
+        Assert.assertTrue(slowest.get(0).getP99().toMillis() >= 20);
+        Assert.assertEquals(SlowQueryInstrumentation.otherOperations, slowest.get(1).getOperation());
+        Assert.assertEquals(2, slowest.get(1).getCount());
+        Assert.assertEquals(1, instrumentation.getSlowest(1).size());
+    }
+
+    @Test
+    public void histogramPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        Assert.assertEquals(1000, histogram.getCount());
+        assertNear(TimeUnit.MILLISECONDS.toNanos(500), histogram.getValueAtPercentile(50));
+        assertNear(TimeUnit.MILLISECONDS.toNanos(990), histogram.getValueAtPercentile(99));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getValueAtPercentile(100));
+        Assert.assertEquals(LatencyHistogram.highestTrackableValue
+                , LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(LatencyHistogram.highestTrackableValue)));
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, Math.abs(expected - actual) <= expected * 0.04);
+    }
+}
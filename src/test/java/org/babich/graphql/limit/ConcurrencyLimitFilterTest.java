@@ -0,0 +1,79 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimitFilterTest {
+
+    @Test
+    public void requestsOverTheLimitAreQueuedThenRejected() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 1, Duration.ofMillis(50));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        HttpServlet slow = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req
+                    , HttpServletResponse resp) {
+                started.countDown();
+                try {
+                    finish.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MockHttpServletResponse> running = executor.submit(() -> filter(filter, new MockFilterChain(slow)));
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(1, filter.getActive());
+
+            MockHttpServletResponse timedOut = filter(filter, new MockFilterChain());
+            Assert.assertEquals(ConcurrencyLimitFilter.tooManyRequests, timedOut.getStatus());
+            Assert.assertEquals("1", timedOut.getHeader("Retry-After"));
+
+            finish.countDown();
+            Assert.assertEquals(200, running.get(5, TimeUnit.SECONDS).getStatus());
+            Assert.assertEquals(0, filter.getActive());
+
+            Assert.assertEquals(200, filter(filter, new MockFilterChain()).getStatus());
+            Assert.assertEquals(1, filter.getRejected());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void requestsAreRejectedAtOnceIfTheQueueIsFull() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(0, 0, Duration.ofMinutes(1));
+
+        long start = System.nanoTime();
+        Assert.assertEquals(ConcurrencyLimitFilter.tooManyRequests, filter(filter, new MockFilterChain()).getStatus());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    private static MockHttpServletResponse filter(ConcurrencyLimitFilter filter, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), response, chain);
+        return response;
+    }
+}
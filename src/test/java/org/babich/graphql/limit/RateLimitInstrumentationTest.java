@@ -0,0 +1,101 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.limit;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.AbortExecutionException;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import org.babich.graphql.GraphQLContextFactory;
+import org.babich.graphql.GraphQLQueryCache;
+import org.babich.graphql.schema.DirectiveExtensionSchemaParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+public class RateLimitInstrumentationTest {
+
+    private static final String sdl = "type Query { item: Item @cost(weight: 5) }\n"
+            + "type Item { id: ID }";
+
+    private final GraphQLContextFactory contextFactory = new GraphQLContextFactory.ServletGraphQLContextFactory();
+
+
+    @Test
+    public void bucketIsRefilledOverTime() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket bucket = new TokenBucket(10, 20, 0);
+
+        Assert.assertTrue(bucket.tryAcquire(15, 0));
+        Assert.assertFalse(bucket.tryAcquire(6, 0));
+        Assert.assertTrue(bucket.tryAcquire(5, 0));
+        Assert.assertFalse(bucket.tryAcquire(1, 0));
+
+        Assert.assertTrue(bucket.tryAcquire(10, second));
+        Assert.assertFalse(bucket.tryAcquire(21, 10 * second));
+        Assert.assertTrue(bucket.tryAcquire(20, 10 * second));
+    }
+
+    @Test
+    public void clientsAreChargedByQueryCost() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new DirectiveExtensionSchemaParser().parse(sdl)
+                , RuntimeWiring.newRuntimeWiring().build());
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new RateLimitInstrumentation(0.001, 12, new ClientKeyStrategy.Header("X-Api-Key")))
+                .preparsedDocumentProvider(new GraphQLQueryCache())
+                .build();
+
+        Assert.assertTrue(execute(graphQL, "first").getErrors().isEmpty());
+        Assert.assertTrue(execute(graphQL, "first").getErrors().isEmpty());
+
+        ExecutionResult limited = execute(graphQL, "first");
+        Assert.assertEquals(1, limited.getErrors().size());
+        Assert.assertTrue(limited.getErrors().get(0) instanceof AbortExecutionException);
+
+        Assert.assertTrue(execute(graphQL, "second").getErrors().isEmpty());
+        Assert.assertTrue(graphQL.execute("{item{id}}").getErrors().isEmpty());
+    }
+
+    @Test
+    public void queriesOverBurstAreRejectedWithTheirOwnError() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new DirectiveExtensionSchemaParser().parse(sdl)
+                , RuntimeWiring.newRuntimeWiring().build());
+
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new RateLimitInstrumentation(100, 5, new ClientKeyStrategy.Header("X-Api-Key")))
+                .build();
+
+        ExecutionResult rejected = execute(graphQL, "first");
+        Assert.assertEquals(1, rejected.getErrors().size());
+        Assert.assertEquals("query cost exceeds the rate limit burst 6 > 5", rejected.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    public void forwardedForIsTakenFromTheRight() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.1.1.1, 203.0.113.7, 10.0.0.1");
+
+        Assert.assertEquals("10.0.0.1", new ClientKeyStrategy.Header("X-Forwarded-For").clientKey(request));
+        Assert.assertEquals("203.0.113.7", new ClientKeyStrategy.Header("X-Forwarded-For", 2).clientKey(request));
+        Assert.assertEquals("1.1.1.1", new ClientKeyStrategy.Header("X-Forwarded-For", 5).clientKey(request));
+        Assert.assertEquals("10.0.0.2", new ClientKeyStrategy.Header("X-Real-IP").clientKey(request));
+    }
+
+    private ExecutionResult execute(GraphQL graphQL, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Api-Key", client);
+
+        return graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("{item{id}}")
+                .context(contextFactory.openQuery(request)));
+    }
+}
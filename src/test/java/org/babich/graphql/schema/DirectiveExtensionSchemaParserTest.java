@@ -0,0 +1,155 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.language.Directive;
+import graphql.language.DirectiveDefinition;
+import graphql.language.DirectiveLocation;
+import graphql.language.FieldDefinition;
+import graphql.language.ImplementingTypeDefinition;
+import graphql.language.ObjectTypeDefinition;
+import graphql.language.TypeName;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import graphql.schema.idl.errors.SchemaProblem;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DirectiveExtensionSchemaParserTest {
+
+    @Test
+    public void allMatchedFilesAreMerged() throws Exception {
+        SchemaStringProviderByFileMatcher provider = new SchemaStringProviderByFileMatcher("graphql/multi/*.graphqls");
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.refresh();
+            context.getAutowireCapableBeanFactory().autowireBean(provider);
+
+            Map<String, String> sources = provider.schemaSources();
+            TypeDefinitionRegistry registry = new DirectiveExtensionSchemaParser().parse(sources);
+
+            Assert.assertEquals(2, sources.size());
+            Assert.assertTrue(registry.getType("Order").isPresent());
+            Assert.assertTrue(registry.getType("OrderConnection").isPresent());
+            Assert.assertTrue(registry.getType("PageInfo").isPresent());
+            Assert.assertEquals(1, registry.objectTypeExtensions().get("Query").size());
+        }
+    }
+
+    @Test
+    public void syntaxErrorsReferToTheSource() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("valid.graphqls", "type Query { id: ID }");
+        sources.put("broken.graphqls", "type Order {");
+
+        try {
+            new DirectiveExtensionSchemaParser().parse(sources);
+            Assert.fail();
+        } catch (SchemaProblem e) {
+            Assert.assertEquals("broken.graphqls", e.getErrors().get(0).getLocations().get(0).getSourceName());
+        }
+    }
+
+    @Test
+    public void definedTypesAreNotReplaced() {
+        String sdl = "directive @connection(for: String!) on FIELD_DEFINITION\n"
+                + "type PageInfo { hasNextPage: Boolean!, total: Int }\n"
+                + "type Order { id: ID }\n"
+                + "type Item { id: ID }\n"
+                + "type Query { orders: OrderConnection @connection(for: \"Order\")"
+                + ", items: ItemConnection @connection(for: \"Item\") }";
+
+        TypeDefinitionRegistry registry = new DirectiveExtensionSchemaParser().parse(sdl);
+
+        Assert.assertTrue(registry.getType("OrderConnectionEdge").isPresent());
+        Assert.assertTrue(registry.getType("ItemConnectionEdge").isPresent());
+        Assert.assertEquals(2, registry.getType("PageInfo", ObjectTypeDefinition.class).get()
+                .getFieldDefinitions().size());
+    }
+
+    @Test
+    public void expanderOfTheApplication() {
+        SchemaDirectiveExpander audited = new SchemaDirectiveExpander() {
+            @Override
+            public String getDirectiveName() {
+                return "audited";
+            }
+
+            @Override
+            public void expandType(ImplementingTypeDefinition<?> type, Directive directive, Context context) {
+                context.defineType(type.getName() + "Audit", () -> ObjectTypeDefinition.newObjectTypeDefinition()
+                        .name(type.getName() + "Audit")
+                        .fieldDefinition(new FieldDefinition("changedBy", new TypeName("String")))
+                        .build());
+            }
+
+            @Override
+            public void complete(Context context) {
+                context.defineDirective("audited", () -> DirectiveDefinition.newDirectiveDefinition()
+                        .name("audited")
+                        .directiveLocation(DirectiveLocation.newDirectiveLocation().name("OBJECT").build())
+                        .build());
+            }
+        };
+
+        TypeDefinitionRegistry registry = new DirectiveExtensionSchemaParser(Collections.singletonList(audited))
+                .parse("type Order @audited { id: ID } type Query { order: Order }");
+
+        Assert.assertTrue(registry.getType("OrderAudit").isPresent());
+        Assert.assertTrue(registry.getDirectiveDefinition("audited").isPresent());
+        Assert.assertFalse(registry.getDirectiveDefinition("cost").isPresent());
+    }
+
+    @Test
+    public void expanderOfTheApplicationReplacesTheDefaultOne() {
+        SchemaDirectiveExpander cost = () -> SchemaDirectiveExpander.Cost.name;
+
+        TypeDefinitionRegistry registry = new DirectiveExtensionSchemaParser(Collections.singletonList(cost))
+                .parse("type Query { id: ID @cost(weight: 2) }");
+
+        Assert.assertSame(cost, new DirectiveExtensionSchemaParser(Collections.singletonList(cost))
+                .getExpanders().get(SchemaDirectiveExpander.Cost.name));
+        Assert.assertFalse(registry.getDirectiveDefinition(SchemaDirectiveExpander.Cost.name).isPresent());
+    }
+
+    @Test
+    public void versionOfExpandersChangesTheSnapshot() {
+        Assert.assertTrue(new DirectiveExtensionSchemaParser().getExpandersVersion()
+                .contains(SchemaDirectiveExpander.Cost.class.getName()));
+
+        String version = new DirectiveExtensionSchemaParser(Collections.singletonList(new Versioned("1")))
+                .getExpandersVersion();
+        String changed = new DirectiveExtensionSchemaParser(Collections.singletonList(new Versioned("2")))
+                .getExpandersVersion();
+
+        Assert.assertNotEquals(version, changed);
+        Assert.assertNotEquals(SchemaSnapshot.hash(version, Collections.emptyMap())
+                , SchemaSnapshot.hash(changed, Collections.emptyMap()));
+    }
+
+
+    static class Versioned implements SchemaDirectiveExpander {
+
+        private final String version;
+
+        Versioned(String version) {
+            this.version = version;
+        }
+
+        @Override
+        public String getDirectiveName() {
+            return "versioned";
+        }
+
+        @Override
+        public String getVersion() {
+            return version;
+        }
+    }
+}
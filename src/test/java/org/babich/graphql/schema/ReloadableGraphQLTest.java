@@ -0,0 +1,171 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import org.babich.graphql.GraphQLQueryCache;
+import org.babich.graphql.SchemaStringProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ReloadableGraphQLTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path schemaFile;
+
+    private GraphQLQueryCache preparsedDocuments;
+
+    private ReloadableGraphQL reloadableGraphQL;
+
+
+    @Before
+    public void setUp() throws IOException {
+        schemaFile = folder.getRoot().toPath().resolve("schema.graphqls");
+        write("type Query { a: String, b: String }");
+
+        SchemaStringProvider schemaStringProvider = new SchemaStringProvider() {
+            @Override
+            public String schemaStrings() throws IOException {
+                return new String(Files.readAllBytes(schemaFile), StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public Collection<Path> schemaLocations() {
+                return Collections.singletonList(schemaFile.getParent());
+            }
+        };
+
+        preparsedDocuments = new GraphQLQueryCache();
+
+        GraphQL graphQL = GraphQL.newGraphQL(buildSchema(schemaStringProvider.schemaSources()))
+                .preparsedDocumentProvider(preparsedDocuments)
+                .build();
+
+        reloadableGraphQL = new ReloadableGraphQL(graphQL, schemaStringProvider
+                , ReloadableGraphQLTest::buildSchema, Duration.ofMillis(50));
+        reloadableGraphQL.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        reloadableGraphQL.close();
+    }
+
+
+    @Test
+    public void validDocumentsAreKept() throws Exception {
+        GraphQL graphQL = reloadableGraphQL.get();
+        Assert.assertTrue(graphQL.execute("{a}").getErrors().isEmpty());
+        Assert.assertTrue(graphQL.execute("{b}").getErrors().isEmpty());
+        Assert.assertFalse(graphQL.execute("{c}").getErrors().isEmpty());
+        Assert.assertEquals(3, cachedDocuments().size());
+
+        write("type Query { a: String, c: String }");
+        GraphQL reloaded = reloadableGraphQL.reload().get(10, TimeUnit.SECONDS);
+
+        Assert.assertNotSame(graphQL, reloaded);
+        Assert.assertSame(reloaded, reloadableGraphQL.get());
+        Assert.assertEquals(1, cachedDocuments().size());
+
+        Assert.assertEquals(Collections.singletonMap("a", "A"), reloaded.execute("{a}").getData());
+        Assert.assertEquals(Collections.singletonMap("c", "C"), reloaded.execute("{c}").getData());
+        Assert.assertFalse(reloaded.execute("{b}").getErrors().isEmpty());
+    }
+
+    @Test
+    public void documentOfThePreviousSchemaIsValidatedAgain() throws Exception {
+        GraphQL graphQL = reloadableGraphQL.get();
+
+        write("type Query { a: String, c: String }");
+        GraphQL reloaded = reloadableGraphQL.reload().get(10, TimeUnit.SECONDS);
+
+        // a request that has started before the reload caches its document
+        Assert.assertTrue(graphQL.execute("{b}").getErrors().isEmpty());
+
+        ExecutionResult result = reloaded.execute("{b}");
+        Assert.assertEquals(1, result.getErrors().size());
+        Assert.assertEquals("ValidationError", result.getErrors().get(0).getErrorType().toString());
+    }
+
+    @Test
+    public void unchangedSourcesAreNotReloaded() throws Exception {
+        GraphQL graphQL = reloadableGraphQL.get();
+
+        write("type Query { a: String, b: String }");
+
+        Assert.assertSame(graphQL, reloadableGraphQL.reload().get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void invalidSchemaKeepsTheCurrentOne() throws Exception {
+        GraphQL graphQL = reloadableGraphQL.get();
+
+        write("type Query { a: Unknown }");
+
+        try {
+            reloadableGraphQL.reload().get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertSame(graphQL, reloadableGraphQL.get());
+        }
+    }
+
+    @Test
+    public void changedFileIsReloaded() throws Exception {
+        GraphQL graphQL = reloadableGraphQL.get();
+
+        write("type Query { a: String, c: String }");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (graphQL == reloadableGraphQL.get() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Assert.assertEquals(Collections.singletonMap("c", "C"), reloadableGraphQL.get().execute("{c}").getData());
+    }
+
+
+    private void write(String sdl) throws IOException {
+        Files.write(schemaFile, sdl.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> cachedDocuments() {
+        return (ConcurrentMap<Object, Object>) preparsedDocuments.getCache().getNativeCache();
+    }
+
+    private static GraphQLSchema buildSchema(Map<String, String> sources) {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", builder -> builder
+                        .dataFetcher("a", environment -> "A")
+                        .dataFetcher("b", environment -> "B")
+                        .dataFetcher("c", environment -> "C"))
+                .build();
+
+        return new SchemaGenerator().makeExecutableSchema(new DirectiveExtensionSchemaParser().parse(sources), wiring);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.schema;
+
+import graphql.language.InterfaceTypeDefinition;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaPrinter;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class SchemaSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    private final Function<Map<String, String>, TypeDefinitionRegistry> parser = sources -> {
+        parsed.incrementAndGet();
+        return new DirectiveExtensionSchemaParser().parse(sources);
+    };
+
+    @Test
+    public void snapshotIsReusedWhileTheSourcesAreTheSame() throws Exception {
+        SchemaSnapshot snapshot = new SchemaSnapshot(folder.getRoot().toPath().resolve("snapshots"));
+        Map<String, String> sources = sources("type Order { id: ID }");
+
+        TypeDefinitionRegistry first = snapshot.load(sources, parser);
+        TypeDefinitionRegistry second = snapshot.load(sources("type Order { id: ID }"), parser);
+
+        Assert.assertEquals(1, parsed.get());
+        Assert.assertTrue(Files.isRegularFile(snapshot.snapshotFile(sources)));
+        Assert.assertTrue(second.getType("OrderConnection").isPresent());
+        Assert.assertEquals(print(first), print(second));
+
+        snapshot.load(sources("type Order { id: ID, name: String }"), parser);
+        Assert.assertEquals(2, parsed.get());
+    }
+
+    @Test
+    public void snapshotDoesNotDependOnSourceNames() {
+        SchemaSnapshot snapshot = new SchemaSnapshot(folder.getRoot().toPath());
+
+        Map<String, String> installed = new LinkedHashMap<>();
+        installed.put("file [/opt/app/graphql/order.graphqls]", "type Order { id: ID }");
+        installed.put("file [/opt/app/graphql/query.graphqls]", "type Query { order: Order }");
+
+        Map<String, String> moved = new LinkedHashMap<>();
+        moved.put("URL [jar:file:/srv/app.jar!/graphql/query.graphqls]", "type Query { order: Order }");
+        moved.put("URL [jar:file:/srv/app.jar!/graphql/order.graphqls]", "type Order { id: ID }");
+
+        Assert.assertEquals(snapshot.snapshotFile(installed), snapshot.snapshotFile(moved));
+    }
+
+    @Test
+    public void unreadableSnapshotIsReplaced() throws Exception {
+        SchemaSnapshot snapshot = new SchemaSnapshot(folder.getRoot().toPath());
+        Map<String, String> sources = sources("type Order { id: ID }");
+
+        Path file = snapshot.snapshotFile(sources);
+        Files.write(file, new byte[]{1, 2, 3});
+
+        Assert.assertTrue(snapshot.load(sources, parser).getType("Order").isPresent());
+        Assert.assertTrue(snapshot.load(sources, parser).getType("Order").isPresent());
+        Assert.assertEquals(1, parsed.get());
+    }
+
+    @Test
+    public void everyDefinitionIsKept() throws Exception {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("full.graphqls", "schema { query: Query }\n"
+                + "directive @tag(names: [String!] = [\"a\"], weight: Float = 1.5) repeatable on FIELD_DEFINITION | OBJECT\n"
+                + "\"\"\"The root\"\"\"\n"
+                + "type Query implements Node @tag { id: ID!, search(filter: Filter = {kind: ONE, limit: 10, exact: null}): [Result] @deprecated(reason: \"no\") }\n"
+                + "# node comment\n"
+                + "interface Node { id: ID! }\n"
+                + "union Result = Query | Item\n"
+                + "type Item implements Node { id: ID!, at: Date }\n"
+                + "\"kind of the filter\"\n"
+                + "enum Kind { ONE TWO @deprecated }\n"
+                + "input Filter { kind: Kind = TWO, limit: Int, exact: Boolean = true }\n"
+                + "scalar Date\n"
+                + "extend type Item { name: String }\n"
+                + "extend enum Kind { THREE }\n"
+                + "extend input Filter { name: String }\n");
+
+        SchemaSnapshot snapshot = new SchemaSnapshot(folder.getRoot().toPath());
+        TypeDefinitionRegistry parsedRegistry = snapshot.load(sources, parser);
+        TypeDefinitionRegistry snapshotRegistry = snapshot.load(sources, parser);
+
+        Assert.assertEquals(1, parsed.get());
+        Assert.assertEquals(print(parsedRegistry), print(snapshotRegistry));
+        Assert.assertEquals(parsedRegistry.getType("Node", InterfaceTypeDefinition.class).get().getComments().get(0).getContent()
+                , snapshotRegistry.getType("Node", InterfaceTypeDefinition.class).get().getComments().get(0).getContent());
+        Assert.assertEquals(parsedRegistry.getType("Item").get().getSourceLocation().getLine()
+                , snapshotRegistry.getType("Item").get().getSourceLocation().getLine());
+        Assert.assertEquals("full.graphqls", snapshotRegistry.getType("Item").get().getSourceLocation().getSourceName());
+    }
+
+
+    private static Map<String, String> sources(String order) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("query.graphqls", "directive @connection(for: String!) on FIELD_DEFINITION "
+                + "type Query { orders(first: Int, after: String): OrderConnection @connection(for: \"Order\") }");
+        sources.put("order.graphqls", order);
+        return sources;
+    }
+
+    private static String print(TypeDefinitionRegistry registry) {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(registry, RuntimeWiring.MOCKED_WIRING);
+        return new SchemaPrinter().print(schema);
+    }
+}
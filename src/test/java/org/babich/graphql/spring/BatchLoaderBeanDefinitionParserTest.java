@@ -0,0 +1,49 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.spring;
+
+import org.babich.graphql.configuration.InstrumentationConfiguration;
+import org.babich.graphql.execution.DataLoaderRegistryFactory;
+import org.babich.graphql.test.utils.loaders.UpperCaseBatchLoader;
+import org.dataloader.BatchLoader;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.GenericXmlApplicationContext;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+public class BatchLoaderBeanDefinitionParserTest {
+
+    @Test
+    public void batchLoadersAreRegisteredUnderTheirNames() {
+        try (GenericXmlApplicationContext context =
+                     new GenericXmlApplicationContext("classpath:graphql/batch-loader-test-context.xml")) {
+
+            @SuppressWarnings("rawtypes")
+            Map<String, BatchLoader> loaders = context.getBeansOfType(BatchLoader.class);
+
+            Assert.assertTrue(loaders.get("upperCase") instanceof UpperCaseBatchLoader);
+            Assert.assertSame(loaders.get("upperCaseRef"), context.getBean("upperCaseLoader"));
+        }
+    }
+
+    @Test
+    public void referencedLoaderIsRegisteredOnce() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            new XmlBeanDefinitionReader(context).loadBeanDefinitions("classpath:graphql/batch-loader-test-context.xml");
+            context.register(InstrumentationConfiguration.class);
+            context.refresh();
+
+            DataLoaderRegistryFactory factory = context.getBean(DataLoaderRegistryFactory.class);
+
+            Assert.assertEquals(new HashSet<>(Arrays.asList("upperCase", "upperCaseRef"))
+                    , factory.newRegistry().getKeys());
+        }
+    }
+}
@@ -4,46 +4,63 @@
 
 package org.babich.graphql.test.utils.fetchers;
 
-import graphql.relay.Connection;
-import graphql.relay.SimpleListConnection;
-import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
+import org.babich.graphql.connection.KeysetConnectionFetcher;
+import org.babich.graphql.connection.KeysetCursor;
+import org.babich.graphql.connection.PageRequest;
+import org.babich.graphql.connection.PageSource;
 import org.babich.graphql.test.utils.RootObject;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.function.Predicate;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class RelayCursorConnectionsFetcher implements DataFetcher<Connection<RootObject>> {
+public class RelayCursorConnectionsFetcher extends KeysetConnectionFetcher<RootObject, String> {
 
-    private static final List<RootObject> onceGeneratedData = generateRandomData(100);
+    private static final NavigableMap<String, RootObject> onceGeneratedData = generateRandomData(100);
 
-    private static final String prefix = RelayCursorConnectionsFetcher.class.getSimpleName();
+    public RelayCursorConnectionsFetcher() {
+        super(KeysetCursor.ofString(RootObject.class.getSimpleName()), new FilteredRootObjects());
+    }
 
-    @Override
-    public Connection<RootObject> get(DataFetchingEnvironment environment) {
 
-        String containsCharacter = environment.getArgument("filter");
+    static class FilteredRootObjects implements PageSource<RootObject, String> {
 
-        Predicate<RootObject> predicate = rootObject ->
-                rootObject.getStringField().contains(containsCharacter);
+        @Override
+        public String getKey(RootObject node) {
+            return node.getStringField();
+        }
 
-        return new SimpleListConnection<>(onceGeneratedData.stream()
-                .filter(predicate)
-                .collect(Collectors.toList()), prefix).get(environment);
-    }
+        @Override
+        public List<RootObject> getPage(PageRequest<String> request, DataFetchingEnvironment environment) {
 
+            String containsCharacter = environment.getArgument("filter");
 
+            List<RootObject> page = new ArrayList<>(request.getLimit());
+            Iterator<RootObject> iterator = PageSource.range(onceGeneratedData, request).values().iterator();
+            while (iterator.hasNext() && page.size() < request.getLimit()) {
+                RootObject rootObject = iterator.next();
+                if (null == containsCharacter || rootObject.getStringField().contains(containsCharacter)) {
+                    page.add(rootObject);
+                }
+            }
+            return page;
+        }
+    }
 
 
-    private static List<RootObject> generateRandomData(int limit) {
+    private static NavigableMap<String, RootObject> generateRandomData(int limit) {
 
         ThreadLocalRandom localRandom = ThreadLocalRandom.current();
 
@@ -63,7 +80,8 @@ public class RelayCursorConnectionsFetcher implements DataFetcher<Connection<Roo
 
         return Stream.generate(rootObjectSupplier)
                 .limit(limit)
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(RootObject::getStringField, Function.identity()
+                        , (a, b) -> a, TreeMap::new));
     }
 
 }
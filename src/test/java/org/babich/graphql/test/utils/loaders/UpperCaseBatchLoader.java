@@ -0,0 +1,20 @@
+/**
+ * @author Vadim Babich
+ */
+
+package org.babich.graphql.test.utils.loaders;
+
+import org.dataloader.BatchLoader;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+public class UpperCaseBatchLoader implements BatchLoader<String, String> {
+
+    @Override
+    public CompletionStage<List<String>> load(List<String> keys) {
+        return CompletableFuture.completedFuture(keys.stream().map(String::toUpperCase).collect(Collectors.toList()));
+    }
+}